@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiReferenceList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Checks whether a class already declares what the generators would add. Only the unresolved names in
+ * the class's own extends/implements lists and fields are used, so no supertype is resolved or walked.
+ */
+public final class AlreadyDefined {
+
+  public static final String INSTANCE_FIELD = "INSTANCE";
+
+  private static final Set<String> HIGHER_NAMES = new HashSet<>(Arrays.asList("Higher1", "Higher2", "Higher3"));
+
+  private AlreadyDefined() {}
+
+  public static boolean higherKind(@NotNull PsiClass clazz) {
+    return extendsHigher(clazz.getExtendsList()) || extendsHigher(clazz.getImplementsList());
+  }
+
+  public static boolean instance(@NotNull PsiClass clazz) {
+    return clazz.findFieldByName(INSTANCE_FIELD, false) != null;
+  }
+
+  public static boolean isHigherName(@Nullable String name) {
+    return name != null && HIGHER_NAMES.contains(name);
+  }
+
+  private static boolean extendsHigher(@Nullable PsiReferenceList list) {
+    if (list != null) {
+      for (PsiJavaCodeReferenceElement reference : list.getReferenceElements()) {
+        if (isHigherName(reference.getReferenceName())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiClass;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface AnnotationIndexService {
+
+  static AnnotationIndexService getInstance(Project project) {
+    return ServiceManager.getService(project, AnnotationIndexService.class);
+  }
+
+  boolean isAnnotated(PsiClass clazz, String annotation);
+  Set<String> getAnnotatedClasses(String annotation);
+
+  /**
+   * Descriptors of the classes annotated with {@code annotation}, read from the persisted index.
+   */
+  Collection<ClassDescriptor> getDescriptors(String annotation);
+
+  /**
+   * Descriptor of the class if it is annotated with {@code annotation}. Read from the persisted index
+   * for project sources, so a cold start needs no annotation or supertype check, or built from the
+   * class otherwise.
+   */
+  @Nullable
+  ClassDescriptor getDescriptor(PsiClass clazz, String annotation);
+}
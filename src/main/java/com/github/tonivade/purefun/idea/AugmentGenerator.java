@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+
+import java.util.List;
+
+/**
+ * Generates the members of classes annotated with {@link #getAnnotation()}. Implementations are
+ * registered in the {@code augmentGenerator} extension point and dispatched by annotation short name.
+ */
+public interface AugmentGenerator {
+
+  ExtensionPointName<AugmentGenerator> EP_NAME =
+      ExtensionPointName.create("com.github.tonivade.purefun.plugin.id.augmentGenerator");
+
+  String getAnnotation();
+
+  List<PsiClass> processClass(PsiClass clazz);
+
+  List<PsiMethod> processMethod(PsiClass clazz);
+
+  List<PsiMethod> processMethod(PsiClass clazz, String name);
+
+  /**
+   * Whether any member would be generated for a class with this descriptor, without building it.
+   */
+  boolean generatesFor(ClassDescriptor descriptor);
+}
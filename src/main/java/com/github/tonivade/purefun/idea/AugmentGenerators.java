@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiModifierList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Maps annotation short names to the registered generators, rebuilt only when the extension list
+ * changes, so a class's annotations are read once and dispatched without a check per annotation.
+ */
+final class AugmentGenerators {
+
+  private static volatile AugmentGenerators current;
+
+  private final List<AugmentGenerator> source;
+  private final Map<String, List<AugmentGenerator>> byShortName = new HashMap<>();
+  private final List<String> annotations;
+
+  private AugmentGenerators(List<AugmentGenerator> source) {
+    this.source = requireNonNull(source);
+    Set<String> names = new LinkedHashSet<>();
+    for (AugmentGenerator generator : source) {
+      byShortName.computeIfAbsent(PurefunAnnotations.shortName(generator.getAnnotation()), key -> new ArrayList<>())
+          .add(generator);
+      names.add(generator.getAnnotation());
+    }
+    this.annotations = unmodifiableList(new ArrayList<>(names));
+  }
+
+  @NotNull
+  static AugmentGenerators getInstance() {
+    List<AugmentGenerator> extensions = AugmentGenerator.EP_NAME.getExtensionList();
+    AugmentGenerators generators = current;
+    if (generators == null || generators.source != extensions) {
+      generators = new AugmentGenerators(extensions);
+      current = generators;
+    }
+    return generators;
+  }
+
+  boolean isShortName(String name) {
+    return byShortName.containsKey(name);
+  }
+
+  @NotNull
+  List<String> getAnnotations() {
+    return annotations;
+  }
+
+  /**
+   * Whether any generator registered for {@code annotation} would add members to the described class.
+   */
+  boolean generatesFor(@NotNull String annotation, @NotNull ClassDescriptor descriptor) {
+    for (AugmentGenerator generator : source) {
+      if (annotation.equals(generator.getAnnotation()) && generator.generatesFor(descriptor)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The registered annotation an unqualified {@code shortName} refers to in the file, if any.
+   */
+  @Nullable
+  String importedAnnotation(@NotNull PsiJavaFile file, @NotNull String shortName) {
+    List<AugmentGenerator> generators = byShortName.get(shortName);
+    if (generators != null) {
+      for (AugmentGenerator generator : generators) {
+        if (PurefunAnnotations.isImported(file, generator.getAnnotation())) {
+          return generator.getAnnotation();
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Generators whose annotation short name appears on the class, in registration order. The fully
+   * qualified name is left to the caller to confirm.
+   */
+  @NotNull
+  List<AugmentGenerator> candidates(@NotNull PsiClass clazz) {
+    PsiModifierList modifierList = clazz.getModifierList();
+    if (modifierList == null) {
+      return emptyList();
+    }
+    List<AugmentGenerator> result = null;
+    for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+      PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+      List<AugmentGenerator> generators = reference != null ? byShortName.get(reference.getReferenceName()) : null;
+      if (generators != null) {
+        if (result == null) {
+          result = new ArrayList<>(generators.size());
+        }
+        result.addAll(generators);
+      }
+    }
+    return result != null ? result : emptyList();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.psi.PsiClass;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compact description of an annotated class: enough to know what would be generated for the class
+ * without computing its augments. Persisted by the annotated classes index, so it survives restarts.
+ */
+public final class ClassDescriptor {
+
+  private static final String WITNESS = "µ";
+
+  private final String qualifiedName;
+  private final int arity;
+  private final boolean higherKindDefined;
+  private final boolean instanceDefined;
+
+  public ClassDescriptor(String qualifiedName, int arity, boolean higherKindDefined, boolean instanceDefined) {
+    this.qualifiedName = requireNonNull(qualifiedName);
+    this.arity = arity;
+    this.higherKindDefined = higherKindDefined;
+    this.instanceDefined = instanceDefined;
+  }
+
+  @NotNull
+  public static ClassDescriptor of(@NotNull PsiClass clazz) {
+    return new ClassDescriptor(requireNonNull(clazz.getQualifiedName()), clazz.getTypeParameters().length,
+        AlreadyDefined.higherKind(clazz), AlreadyDefined.instance(clazz));
+  }
+
+  @NotNull
+  public String getQualifiedName() {
+    return qualifiedName;
+  }
+
+  public int getArity() {
+    return arity;
+  }
+
+  @NotNull
+  public String getWitnessName() {
+    return qualifiedName + "." + WITNESS;
+  }
+
+  public boolean isHigherKindDefined() {
+    return higherKindDefined;
+  }
+
+  public boolean isInstanceDefined() {
+    return instanceDefined;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    ClassDescriptor other = (ClassDescriptor) obj;
+    return arity == other.arity
+        && higherKindDefined == other.higherKindDefined
+        && instanceDefined == other.instanceDefined
+        && qualifiedName.equals(other.qualifiedName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(qualifiedName, arity, higherKindDefined, instanceDefined);
+  }
+
+  @Override
+  public String toString() {
+    return "ClassDescriptor(" + qualifiedName + ", " + arity + ", " + higherKindDefined + ", " + instanceDefined + ")";
+  }
+}
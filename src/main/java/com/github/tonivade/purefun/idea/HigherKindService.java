@@ -7,7 +7,6 @@ package com.github.tonivade.purefun.idea;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiMethod;
 
 import java.util.List;
@@ -20,4 +19,9 @@ public interface HigherKindService {
 
   List<PsiMethod> processMethod(PsiClass clazz);
   List<PsiClass> processClass(PsiClass clazz);
+
+  /**
+   * Builds only the generated methods called {@code name}, for lookups that resolve one call.
+   */
+  List<PsiMethod> processMethod(PsiClass clazz, String name);
 }
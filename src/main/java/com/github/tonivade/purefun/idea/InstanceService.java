@@ -18,4 +18,9 @@ public interface InstanceService {
   }
 
   List<PsiMethod> processMethod(PsiClass clazz);
+
+  /**
+   * Builds only the generated methods called {@code name}, for lookups that resolve one call.
+   */
+  List<PsiMethod> processMethod(PsiClass clazz, String name);
 }
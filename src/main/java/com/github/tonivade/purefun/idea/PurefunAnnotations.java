@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiImportList;
+import com.intellij.psi.PsiImportStatement;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiModifierList;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.intellij.psi.util.CachedValuesManager.getCachedValue;
+
+public final class PurefunAnnotations {
+
+  public static final String PUREFUN_PACKAGE = "com.github.tonivade.purefun";
+  public static final String HIGHER_KIND = PUREFUN_PACKAGE + ".HigherKind";
+  public static final String INSTANCE = PUREFUN_PACKAGE + ".Instance";
+
+  static final Key<CachedValue<Imports>> IMPORTS = Key.create("purefun.imports");
+
+  private PurefunAnnotations() {}
+
+  /**
+   * Annotations of the generators registered in the {@code augmentGenerator} extension point.
+   */
+  @NotNull
+  public static List<String> registered() {
+    return AugmentGenerators.getInstance().getAnnotations();
+  }
+
+  @NotNull
+  public static String shortName(@NotNull String annotation) {
+    return annotation.substring(annotation.lastIndexOf('.') + 1);
+  }
+
+  @NotNull
+  public static String packageName(@NotNull String annotation) {
+    int index = annotation.lastIndexOf('.');
+    return index < 0 ? "" : annotation.substring(0, index);
+  }
+
+  /**
+   * Resolves the fully qualified name of the annotation looking only at its text and the
+   * imports of the file, so no reference resolution nor index access is needed.
+   */
+  @Nullable
+  public static String qualifiedNameOf(@NotNull PsiJavaFile file, @NotNull PsiAnnotation annotation) {
+    PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+    if (reference == null) {
+      return null;
+    }
+    if (reference.isQualified()) {
+      return reference.getText();
+    }
+    String shortName = reference.getReferenceName();
+    if (shortName == null) {
+      return null;
+    }
+    return AugmentGenerators.getInstance().importedAnnotation(file, shortName);
+  }
+
+  /**
+   * Checks the annotations of the class only by their text, usable while indexes are not ready.
+   */
+  public static boolean isAnnotated(@NotNull PsiJavaFile file, @NotNull PsiClass clazz, @NotNull String annotation) {
+    PsiModifierList modifierList = clazz.getModifierList();
+    if (modifierList != null) {
+      for (PsiAnnotation candidate : modifierList.getAnnotations()) {
+        if (annotation.equals(qualifiedNameOf(file, candidate))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether {@code annotation} can be used by its short name in the file, because it is in the same
+   * package or imported, by name or on demand. The imports are cached per file.
+   */
+  public static boolean isImported(@NotNull PsiJavaFile file, @NotNull String annotation) {
+    Imports imports = getCachedValue(file, IMPORTS, () -> Result.create(new Imports(file), file));
+    return imports.names.contains(annotation) || imports.packages.contains(packageName(annotation));
+  }
+
+  private static final class Imports {
+
+    private final Set<String> names = new HashSet<>();
+    private final Set<String> packages = new HashSet<>();
+
+    private Imports(@NotNull PsiJavaFile file) {
+      packages.add(file.getPackageName());
+      PsiImportList importList = file.getImportList();
+      if (importList != null) {
+        for (PsiImportStatement statement : importList.getImportStatements()) {
+          String qualifiedName = statement.getQualifiedName();
+          if (qualifiedName != null) {
+            (statement.isOnDemand() ? packages : names).add(qualifiedName);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Everything generated for a class, computed in one pass over its annotations. The generated classes,
+ * such as the µ witness, are built with the bundle; the methods are built from the same generators on
+ * first use, so resolving a witness never builds a method. Methods looked up by name are built alone
+ * and reused when the full list is built, so both lookups return the same instances.
+ */
+public final class PurefunAugments {
+
+  public static final PurefunAugments EMPTY = new PurefunAugments(emptyList(), emptyList());
+
+  private final List<PsiClass> classes;
+  @Nullable
+  private final PsiClass clazz;
+  private final List<AugmentGenerator> generators;
+  private final ConcurrentMap<String, List<PsiMethod>> named;
+
+  private volatile List<PsiMethod> methods;
+
+  public PurefunAugments(List<PsiClass> classes, List<PsiMethod> methods) {
+    this.classes = unmodifiableList(requireNonNull(classes));
+    this.methods = unmodifiableList(requireNonNull(methods));
+    this.clazz = null;
+    this.generators = emptyList();
+    this.named = null;
+  }
+
+  PurefunAugments(PsiClass clazz, List<AugmentGenerator> generators, List<PsiClass> classes) {
+    this.classes = unmodifiableList(requireNonNull(classes));
+    this.clazz = requireNonNull(clazz);
+    this.generators = requireNonNull(generators);
+    this.named = new ConcurrentHashMap<>();
+  }
+
+  @NotNull
+  public List<PsiClass> getClasses() {
+    return classes;
+  }
+
+  @NotNull
+  public List<PsiMethod> getMethods() {
+    List<PsiMethod> result = methods;
+    if (result == null) {
+      result = AugmentsLock.compute(requireNonNull(clazz), this::computeMethods);
+    }
+    return result != null ? result : emptyList();
+  }
+
+  /**
+   * Generated methods called {@code name}, without building the others if the full list is not built yet.
+   */
+  @NotNull
+  public List<PsiMethod> getMethods(@NotNull String name) {
+    List<PsiMethod> all = methods;
+    if (all != null) {
+      return filter(all, name);
+    }
+    List<PsiMethod> slice = requireNonNull(named).get(name);
+    if (slice != null) {
+      return slice;
+    }
+    List<PsiMethod> generated = AugmentsCachedValue.generateMethods(requireNonNull(clazz), generators, name);
+    if (generated == null) {
+      return emptyList();
+    }
+    synchronized (this) {
+      if (methods != null) {
+        return filter(methods, name);
+      }
+      slice = named.putIfAbsent(name, unmodifiableList(generated));
+      return slice != null ? slice : named.get(name);
+    }
+  }
+
+  public boolean isEmpty() {
+    return classes.isEmpty() && getMethods().isEmpty();
+  }
+
+  /**
+   * Nothing is kept when the generation is a recursive call, so the outer one still completes it.
+   */
+  @Nullable
+  private List<PsiMethod> computeMethods() {
+    List<PsiMethod> result = methods;
+    if (result != null) {
+      return result;
+    }
+    List<PsiMethod> generated = AugmentsCachedValue.generateMethods(requireNonNull(clazz), generators, null);
+    if (generated == null) {
+      return null;
+    }
+    synchronized (this) {
+      if (methods == null) {
+        methods = generated.isEmpty() ? emptyList() : unmodifiableList(reuseNamed(generated));
+        named.clear();
+      }
+      return methods;
+    }
+  }
+
+  /**
+   * Replaces the generated methods by the ones already returned by name, which the generators build in
+   * the same order.
+   */
+  @NotNull
+  private List<PsiMethod> reuseNamed(@NotNull List<PsiMethod> generated) {
+    List<PsiMethod> result = new ArrayList<>(generated.size());
+    Map<String, Integer> positions = new HashMap<>();
+    for (PsiMethod method : generated) {
+      List<PsiMethod> slice = requireNonNull(named).get(method.getName());
+      int position = positions.merge(method.getName(), 1, Integer::sum) - 1;
+      result.add(slice != null && position < slice.size() ? slice.get(position) : method);
+    }
+    return result;
+  }
+
+  @NotNull
+  private static List<PsiMethod> filter(@NotNull List<PsiMethod> methods, @NotNull String name) {
+    List<PsiMethod> result = new ArrayList<>();
+    for (PsiMethod method : methods) {
+      if (name.equals(method.getName())) {
+        result.add(method);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PurefunMetrics {
+
+  public static final String HIGHER_KIND_CLASS = "HigherKindService.processClass";
+  public static final String HIGHER_KIND_METHOD = "HigherKindService.processMethod";
+  public static final String INSTANCE_PROCESS = "InstanceService.processMethod";
+
+  private final LongAdder classCalls = new LongAdder();
+  private final LongAdder methodCalls = new LongAdder();
+  private final LongAdder otherCalls = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder higherLookups = new LongAdder();
+  private final ConcurrentMap<String, LongAdder> recomputations = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+  public static PurefunMetrics getInstance(Project project) {
+    return ServiceManager.getService(project, PurefunMetrics.class);
+  }
+
+  public void augmentCall(@NotNull Class<?> type, boolean hit) {
+    if (type == PsiClass.class) {
+      classCalls.increment();
+    } else if (type == PsiMethod.class) {
+      methodCalls.increment();
+    } else {
+      otherCalls.increment();
+    }
+    (hit ? hits : misses).increment();
+  }
+
+  public void recompute(@NotNull Class<?> cachedValue) {
+    recomputations.computeIfAbsent(cachedValue.getSimpleName(), name -> new LongAdder()).increment();
+  }
+
+  public void higherLookup() {
+    higherLookups.increment();
+  }
+
+  public long start() {
+    return System.nanoTime();
+  }
+
+  public void record(@NotNull String operation, long start) {
+    timers.computeIfAbsent(operation, name -> new Timer()).record(System.nanoTime() - start);
+  }
+
+  /**
+   * Records the timing like {@link #record(String, long)} and traces it for the given class.
+   */
+  public void record(@NotNull String operation, @NotNull PsiClass clazz, long start) {
+    long elapsed = System.nanoTime() - start;
+    timers.computeIfAbsent(operation, name -> new Timer()).record(elapsed);
+    PurefunTracing.trace(operation, clazz, elapsed);
+  }
+
+  public long getHigherLookups() {
+    return higherLookups.sum();
+  }
+
+  public long getRecomputations() {
+    return recomputations.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  public void reset() {
+    classCalls.reset();
+    methodCalls.reset();
+    otherCalls.reset();
+    hits.reset();
+    misses.reset();
+    higherLookups.reset();
+    recomputations.clear();
+    timers.clear();
+  }
+
+  @NotNull
+  public Map<String, Long> snapshot() {
+    Map<String, Long> result = new TreeMap<>();
+    result.put("getAugments.PsiClass", classCalls.sum());
+    result.put("getAugments.PsiMethod", methodCalls.sum());
+    result.put("getAugments.other", otherCalls.sum());
+    result.put("getAugments.hits", hits.sum());
+    result.put("getAugments.misses", misses.sum());
+    result.put("higherLookups", higherLookups.sum());
+    recomputations.forEach((name, count) -> result.put("recompute." + name, count.sum()));
+    timers.forEach((name, timer) -> {
+      result.put(name + ".count", timer.count.sum());
+      result.put(name + ".totalMicros", timer.nanos.sum() / 1000);
+      result.put(name + ".maxMicros", timer.max.get() / 1000);
+    });
+    return result;
+  }
+
+  @NotNull
+  public String format() {
+    StringBuilder text = new StringBuilder();
+    snapshot().forEach((name, value) -> text.append(name).append(": ").append(value).append('\n'));
+    return text.toString();
+  }
+
+  private static final class Timer {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long elapsed) {
+      count.increment();
+      nanos.add(elapsed);
+      max.accumulateAndGet(elapsed, Math::max);
+    }
+  }
+}
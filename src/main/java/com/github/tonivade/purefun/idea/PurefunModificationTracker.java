@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiIdentifier;
+import com.intellij.psi.PsiImportList;
+import com.intellij.psi.PsiImportStatementBase;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiModifierList;
+import com.intellij.psi.PsiPackageStatement;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.impl.PsiTreeChangeEventImpl;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bumps only when a registered annotation or an import from the package of one is added, removed or
+ * changed, or when a class or package in a file using them is renamed, so project wide caches can
+ * survive ordinary edits. A reloaded file is seen through the specific events of the reparse.
+ */
+public class PurefunModificationTracker extends SimpleModificationTracker implements Disposable {
+
+  public PurefunModificationTracker(Project project) {
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new Listener(), this);
+  }
+
+  public static PurefunModificationTracker getInstance(Project project) {
+    return ServiceManager.getService(project, PurefunModificationTracker.class);
+  }
+
+  @Override
+  public void dispose() {
+  }
+
+  private final class Listener extends PsiTreeChangeAdapter {
+
+    @Override
+    public void childAdded(@NotNull PsiTreeChangeEvent event) {
+      check(event);
+    }
+
+    @Override
+    public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+      check(event);
+    }
+
+    @Override
+    public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+      check(event);
+    }
+
+    @Override
+    public void childMoved(@NotNull PsiTreeChangeEvent event) {
+      check(event);
+    }
+
+    @Override
+    public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+      check(event);
+    }
+
+    private void check(@NotNull PsiTreeChangeEvent event) {
+      // generic events follow every change and reparse, external and VCS reloads also send specific ones
+      if (event instanceof PsiTreeChangeEventImpl && ((PsiTreeChangeEventImpl) event).isGenericChange()) {
+        return;
+      }
+      if (isPurefunChange(event)) {
+        incModificationCount();
+      }
+    }
+  }
+
+  private static boolean isPurefunChange(@NotNull PsiTreeChangeEvent event) {
+    PsiElement parent = event.getParent();
+    if (parent == null || parent instanceof PsiFile) {
+      return isPurefunFile(parent) || isPurefunFile(event.getChild())
+          || isPurefunFile(event.getOldChild()) || isPurefunFile(event.getNewChild());
+    }
+    if (isRename(event, parent)) {
+      return isPurefunFile(parent.getContainingFile());
+    }
+    PsiElement context = PsiTreeUtil.getParentOfType(parent, false,
+        PsiAnnotation.class, PsiImportStatementBase.class, PsiImportList.class, PsiModifierList.class);
+    if (context != null) {
+      return mentionsPurefun(context, true) || mentionsPurefun(event.getChild(), true)
+          || mentionsPurefun(event.getOldChild(), true) || mentionsPurefun(event.getNewChild(), true);
+    }
+    return isPurefunDeclaration(event.getChild())
+        || isPurefunDeclaration(event.getOldChild()) || isPurefunDeclaration(event.getNewChild());
+  }
+
+  /**
+   * Changes of a class name identifier or of the package statement, which change the qualified names
+   * the annotated classes are cached by.
+   */
+  private static boolean isRename(@NotNull PsiTreeChangeEvent event, @NotNull PsiElement parent) {
+    if (PsiTreeUtil.getParentOfType(parent, PsiPackageStatement.class, false) != null) {
+      return true;
+    }
+    if (parent instanceof PsiClass) {
+      return event.getChild() instanceof PsiIdentifier
+          || event.getOldChild() instanceof PsiIdentifier || event.getNewChild() instanceof PsiIdentifier;
+    }
+    return parent instanceof PsiIdentifier && parent.getParent() instanceof PsiClass;
+  }
+
+  private static boolean isPurefunFile(@Nullable PsiElement element) {
+    return element instanceof PsiJavaFile && mentionsPurefun(element, false);
+  }
+
+  private static boolean isPurefunDeclaration(@Nullable PsiElement element) {
+    if (element instanceof PsiJavaFile) {
+      return true;
+    }
+    if (element instanceof PsiClass || element instanceof PsiImportList || element instanceof PsiModifierList) {
+      return mentionsPurefun(element, false);
+    }
+    if (element instanceof PsiAnnotation || element instanceof PsiImportStatementBase) {
+      return mentionsPurefun(element, true);
+    }
+    return false;
+  }
+
+  private static boolean mentionsPurefun(@Nullable PsiElement element, boolean shortNames) {
+    if (element == null) {
+      return false;
+    }
+    CharSequence text = element.getNode() != null ? element.getNode().getChars() : element.getText();
+    if (text == null) {
+      return false;
+    }
+    for (String annotation : PurefunAnnotations.registered()) {
+      if (StringUtil.contains(text, PurefunAnnotations.packageName(annotation))
+          || (shortNames && StringUtil.contains(text, PurefunAnnotations.shortName(annotation)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
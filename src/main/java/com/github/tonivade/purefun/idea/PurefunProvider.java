@@ -4,112 +4,263 @@
  */
 package com.github.tonivade.purefun.idea;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.RecursionGuard;
 import com.intellij.openapi.util.RecursionManager;
+import com.intellij.psi.PsiAnnotation;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiCompiledElement;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifierList;
 import com.intellij.psi.augment.PsiAugmentProvider;
+import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import com.intellij.psi.util.CachedValuesManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
-import static com.intellij.psi.util.CachedValuesManager.getCachedValue;
 import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
 
-public class PurefunProvider extends PsiAugmentProvider {
-
-  private static final String HIGHER_KIND = "com.github.tonivade.purefun.HigherKind";
-  private static final String INSTANCE = "com.github.tonivade.purefun.Instance";
+/**
+ * Dumb aware: while indexing the annotations are matched by text and the generated signatures refer to
+ * purefun types by name. Those results depend on the dumb mode tracker, so they are recomputed once
+ * smart mode returns while results computed in smart mode are kept.
+ */
+public class PurefunProvider extends PsiAugmentProvider implements DumbAware {
 
   @NotNull
   @Override
   protected <Psi extends PsiElement> List<Psi> getAugments(@NotNull PsiElement element, @NotNull Class<Psi> type) {
-    if (element instanceof PsiClass) {
+    if (element instanceof PsiClass && (type == PsiClass.class || type == PsiMethod.class)) {
       PsiClass clazz = (PsiClass) element;
-      if (clazz.hasAnnotation(HIGHER_KIND)) {
-        if (type == PsiClass.class) {
-          return (List<Psi>) getCachedValue(clazz, new ClassCachedValue(clazz));
-        } else if (type == PsiMethod.class) {
-          return (List<Psi>) getCachedValue(clazz, new MethodHigherKindCachedValue(clazz));
-        }
-      }
-      if (clazz.hasAnnotation(INSTANCE)) {
-        if (type == PsiMethod.class) {
-          return (List<Psi>) getCachedValue(clazz, new MethodInstanceCachedValue(clazz));
-        }
-      }
+      List<? extends PsiElement> result = type == PsiClass.class ? getClasses(clazz) : getAugments(clazz).getMethods();
+      PurefunMetrics.getInstance(clazz.getProject()).augmentCall(type, !result.isEmpty());
+      @SuppressWarnings("unchecked")
+      List<Psi> augments = (List<Psi>) result;
+      return augments;
     }
     return emptyList();
   }
-}
 
-class ClassCachedValue extends AbstractCachedValue<PsiClass> {
-  ClassCachedValue(PsiClass clazz) {
-    super(clazz, PsiClass.class);
+  @NotNull
+  public static PurefunAugments getAugments(@NotNull PsiClass clazz) {
+    CachedValue<PurefunAugments> cachedValue = clazz.getUserData(AugmentsCachedValue.KEY);
+    if (cachedValue == null) {
+      if (!PurefunFilter.mayBeAnnotated(clazz)) {
+        return PurefunAugments.EMPTY;
+      }
+      cachedValue = UserDataUtil.putIfAbsent(clazz, AugmentsCachedValue.KEY,
+          CachedValuesManager.getManager(clazz.getProject()).createCachedValue(new AugmentsCachedValue(clazz), false));
+    }
+    PurefunAugments augments = cachedValue.hasUpToDateValue() ? cachedValue.getValue() : AugmentsLock.compute(clazz, cachedValue::getValue);
+    return augments != null ? augments : PurefunAugments.EMPTY;
   }
 
+  /**
+   * Only the generated classes, such as the µ witness, read from the augments without building any
+   * method.
+   */
   @NotNull
-  @Override
-  protected Result<List<PsiClass>> process(PsiClass clazz) {
-    return Result.create(HigherKindService.getInstance(clazz.getProject()).processClass(clazz), clazz);
+  public static List<PsiClass> getClasses(@NotNull PsiClass clazz) {
+    return getAugments(clazz).getClasses();
+  }
+
+  /**
+   * Generated methods of the class called {@code name}, the same instances the full augments return.
+   */
+  @NotNull
+  public static List<PsiMethod> getMethods(@NotNull PsiClass clazz, @NotNull String name) {
+    return getAugments(clazz).getMethods(name);
   }
 }
 
-class MethodInstanceCachedValue extends AbstractCachedValue<PsiMethod> {
+/**
+ * Lets only one background thread at a time compute the augments of a class, so the others wait and
+ * reuse its result. The EDT never waits, and waiting threads stay cancellable and give up after a
+ * bounded time, computing on their own instead.
+ */
+final class AugmentsLock {
+
+  private static final int STRIPES = 64;
+  private static final long WAIT_STEP_MILLIS = 10;
+  private static final long MAX_WAIT_MILLIS = 2000;
 
-  MethodInstanceCachedValue(PsiClass clazz) {
-    super(clazz, PsiMethod.class);
+  private static final ReentrantLock[] LOCKS = new ReentrantLock[STRIPES];
+
+  static {
+    for (int i = 0; i < STRIPES; i++) {
+      LOCKS[i] = new ReentrantLock();
+    }
   }
 
-  @Override
-  protected Result<List<PsiMethod>> process(PsiClass clazz) {
-    return Result.create(InstanceService.getInstance(clazz.getProject()).processMethod(clazz), clazz);
+  private AugmentsLock() {}
+
+  @Nullable
+  static <T> T compute(@NotNull PsiClass clazz, @NotNull Supplier<T> value) {
+    if (ApplicationManager.getApplication().isDispatchThread()) {
+      return value.get();
+    }
+    ReentrantLock lock = LOCKS[(System.identityHashCode(clazz) & Integer.MAX_VALUE) % STRIPES];
+    if (!tryLock(lock)) {
+      return value.get();
+    }
+    try {
+      return value.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static boolean tryLock(@NotNull ReentrantLock lock) {
+    try {
+      for (long waited = 0; waited < MAX_WAIT_MILLIS; waited += WAIT_STEP_MILLIS) {
+        if (lock.tryLock(WAIT_STEP_MILLIS, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+        ProgressManager.checkCanceled();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
   }
 }
 
-class MethodHigherKindCachedValue extends AbstractCachedValue<PsiMethod> {
-  MethodHigherKindCachedValue(PsiClass clazz) {
-    super(clazz, PsiMethod.class);
+final class PurefunFilter {
+
+  private PurefunFilter() {}
+
+  static boolean mayBeAnnotated(@NotNull PsiClass clazz) {
+    PsiModifierList modifierList = clazz.getModifierList();
+    if (modifierList == null) {
+      return false;
+    }
+    AugmentGenerators generators = AugmentGenerators.getInstance();
+    for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+      PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+      String shortName = reference != null ? reference.getReferenceName() : null;
+      if (shortName != null && generators.isShortName(shortName)
+          && (reference.isQualified() || isImported(generators, clazz.getContainingFile(), shortName))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the file imports, or shares the package of, a registered annotation with this short name.
+   */
+  private static boolean isImported(@NotNull AugmentGenerators generators, @Nullable PsiFile file, @NotNull String shortName) {
+    if (!(file instanceof PsiJavaFile) || file instanceof PsiCompiledElement) {
+      return true;
+    }
+    return generators.importedAnnotation((PsiJavaFile) file, shortName) != null;
   }
+}
+
+class AugmentsCachedValue extends AbstractCachedValue<PurefunAugments> {
+
+  static final Key<CachedValue<PurefunAugments>> KEY = Key.create("purefun.augments");
+
+  private static final RecursionGuard<PsiClass> GUARD = RecursionManager.createGuard("purefun.augments");
 
+  AugmentsCachedValue(PsiClass clazz) {
+    super(clazz, GUARD);
+  }
+
+  /**
+   * Finds the generators of the class and builds their classes; the methods are left to the bundle.
+   */
   @NotNull
   @Override
-  protected Result<List<PsiMethod>> process(PsiClass clazz) {
-    return Result.create(HigherKindService.getInstance(clazz.getProject()).processMethod(clazz), clazz);
+  protected Result<PurefunAugments> process(PsiClass clazz) {
+    AnnotationIndexService indexService = AnnotationIndexService.getInstance(clazz.getProject());
+    List<AugmentGenerator> generators = new ArrayList<>();
+    List<PsiClass> classes = new ArrayList<>();
+    for (AugmentGenerator generator : AugmentGenerators.getInstance().candidates(clazz)) {
+      if (indexService.getDescriptor(clazz, generator.getAnnotation()) != null) {
+        generators.add(generator);
+        classes.addAll(generator.processClass(clazz));
+      }
+    }
+    PurefunAugments augments = generators.isEmpty() ? PurefunAugments.EMPTY : new PurefunAugments(clazz, generators, classes);
+    return Result.create(augments, dependencies(clazz));
+  }
+
+  /**
+   * Builds the methods of the generators, only the ones called {@code name} if it is not null.
+   */
+  @Nullable
+  static List<PsiMethod> generateMethods(@NotNull PsiClass clazz, @NotNull List<AugmentGenerator> generators,
+                                         @Nullable String name) {
+    PurefunMetrics metrics = PurefunMetrics.getInstance(clazz.getProject());
+    metrics.recompute(PurefunAugments.class);
+    long start = metrics.start();
+    try {
+      return GUARD.doPreventingRecursion(clazz, true, () -> {
+        List<PsiMethod> methods = new ArrayList<>();
+        for (AugmentGenerator generator : generators) {
+          methods.addAll(name != null ? generator.processMethod(clazz, name) : generator.processMethod(clazz));
+        }
+        return methods;
+      });
+    } finally {
+      metrics.record(PurefunTracing.COMPUTE_AUGMENTS, clazz, start);
+    }
   }
 }
 
-abstract class AbstractCachedValue<P extends PsiElement> implements CachedValueProvider<List<P>> {
+abstract class AbstractCachedValue<T> implements CachedValueProvider<T> {
 
   private final PsiClass clazz;
   private final RecursionGuard<PsiClass> recursionGuard;
 
-  AbstractCachedValue(PsiClass clazz, Class<? extends PsiElement> type) {
+  AbstractCachedValue(PsiClass clazz, RecursionGuard<PsiClass> recursionGuard) {
     this.clazz = requireNonNull(clazz);
-    this.recursionGuard = RecursionManager.createGuard("purefun." + type.getName());
+    this.recursionGuard = requireNonNull(recursionGuard);
   }
 
   @Nullable
   @Override
-  public Result<List<P>> compute() {
-    return recursionGuard.doPreventingRecursion(clazz, true, () -> process(clazz));
+  public Result<T> compute() {
+    PurefunMetrics metrics = PurefunMetrics.getInstance(clazz.getProject());
+    metrics.recompute(getClass());
+    long start = metrics.start();
+    try {
+      return recursionGuard.doPreventingRecursion(clazz, true, () -> process(clazz));
+    } finally {
+      metrics.record(PurefunTracing.COMPUTE_AUGMENTS, clazz, start);
+    }
   }
 
-  protected abstract Result<List<P>> process(PsiClass clazz);
+  protected abstract Result<T> process(PsiClass clazz);
 
-  @Override
-  public boolean equals(Object obj) {
-    if (obj == null) return false;
-    if (this == obj) return true;
-    if (!this.getClass().isInstance(obj)) {
-      return false;
+  @NotNull
+  static Object[] dependencies(@NotNull PsiClass clazz) {
+    Project project = clazz.getProject();
+    DumbService dumbService = DumbService.getInstance(project);
+    if (dumbService.isDumb()) {
+      return new Object[] { SignatureTracker.of(clazz), ProjectRootModificationTracker.getInstance(project),
+          dumbService.getModificationTracker() };
     }
-    AbstractCachedValue other = (AbstractCachedValue) obj;
-    return Objects.equals(this.clazz, other.clazz);
+    return new Object[] { SignatureTracker.of(clazz), ProjectRootModificationTracker.getInstance(project) };
   }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiShortNamesCache;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.tonivade.purefun.idea.PurefunAnnotations.HIGHER_KIND;
+import static com.github.tonivade.purefun.idea.PurefunAnnotations.INSTANCE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Exposes the generated µ witnesses and narrowK/kindN/instance methods to completion and Go to Symbol.
+ * Names are answered from the annotation index; light elements are only built for the annotated classes
+ * when a concrete name is requested, and then only the methods with that name.
+ */
+public class PurefunShortNamesCache extends PsiShortNamesCache {
+
+  private static final String WITNESS = "µ";
+  private static final String[] HIGHER_KIND_METHODS = { "narrowK", "kind1", "kind2", "kind3" };
+  private static final String INSTANCE_METHOD = "instance";
+
+  private final Project project;
+
+  public PurefunShortNamesCache(Project project) {
+    this.project = requireNonNull(project);
+  }
+
+  @NotNull
+  @Override
+  public PsiClass[] getClassesByName(@NotNull String name, @NotNull GlobalSearchScope scope) {
+    if (!WITNESS.equals(name) || isNotReady()) {
+      return PsiClass.EMPTY_ARRAY;
+    }
+    List<PsiClass> result = new ArrayList<>();
+    for (PsiClass clazz : annotatedClasses(HIGHER_KIND, scope)) {
+      result.addAll(PurefunProvider.getClasses(clazz));
+    }
+    return result.toArray(PsiClass.EMPTY_ARRAY);
+  }
+
+  @NotNull
+  @Override
+  public String[] getAllClassNames() {
+    if (isNotReady() || indexService().getAnnotatedClasses(HIGHER_KIND).isEmpty()) {
+      return ArrayUtil.EMPTY_STRING_ARRAY;
+    }
+    return new String[] { WITNESS };
+  }
+
+  @NotNull
+  @Override
+  public PsiMethod[] getMethodsByName(@NotNull String name, @NotNull GlobalSearchScope scope) {
+    List<PsiMethod> result = new ArrayList<>();
+    processMethodsWithName(name, scope, result::add);
+    return result.toArray(PsiMethod.EMPTY_ARRAY);
+  }
+
+  @NotNull
+  @Override
+  public PsiMethod[] getMethodsByNameIfNotMoreThan(@NotNull String name, @NotNull GlobalSearchScope scope, int maxCount) {
+    List<PsiMethod> result = new ArrayList<>();
+    processMethodsWithName(name, scope, method -> result.add(method) && result.size() < maxCount);
+    return result.toArray(PsiMethod.EMPTY_ARRAY);
+  }
+
+  @Override
+  public boolean processMethodsWithName(@NotNull String name, @NotNull GlobalSearchScope scope,
+                                        @NotNull Processor<? super PsiMethod> processor) {
+    String annotation = annotationOf(name);
+    if (annotation == null || isNotReady()) {
+      return true;
+    }
+    for (PsiClass clazz : annotatedClasses(annotation, scope)) {
+      for (PsiMethod method : PurefunProvider.getMethods(clazz, name)) {
+        if (!processor.process(method)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @NotNull
+  @Override
+  public String[] getAllMethodNames() {
+    if (isNotReady()) {
+      return ArrayUtil.EMPTY_STRING_ARRAY;
+    }
+    int maxHigher = 0;
+    for (ClassDescriptor descriptor : indexService().getDescriptors(HIGHER_KIND)) {
+      if (AugmentGenerators.getInstance().generatesFor(HIGHER_KIND, descriptor)) {
+        maxHigher = Math.max(maxHigher, Math.min(descriptor.getArity(), HIGHER_KIND_METHODS.length - 1));
+      }
+    }
+    Set<String> names = new LinkedHashSet<>(Arrays.asList(HIGHER_KIND_METHODS).subList(0, maxHigher + (maxHigher > 0 ? 1 : 0)));
+    for (ClassDescriptor descriptor : indexService().getDescriptors(INSTANCE)) {
+      if (AugmentGenerators.getInstance().generatesFor(INSTANCE, descriptor)) {
+        names.add(INSTANCE_METHOD);
+        break;
+      }
+    }
+    return ArrayUtil.toStringArray(names);
+  }
+
+  @NotNull
+  @Override
+  public PsiField[] getFieldsByNameIfNotMoreThan(@NotNull String name, @NotNull GlobalSearchScope scope, int maxCount) {
+    return PsiField.EMPTY_ARRAY;
+  }
+
+  @NotNull
+  @Override
+  public PsiField[] getFieldsByName(@NotNull String name, @NotNull GlobalSearchScope scope) {
+    return PsiField.EMPTY_ARRAY;
+  }
+
+  @NotNull
+  @Override
+  public String[] getAllFieldNames() {
+    return ArrayUtil.EMPTY_STRING_ARRAY;
+  }
+
+  @NotNull
+  @Override
+  public PsiFile[] getFilesByName(@NotNull String name) {
+    return PsiFile.EMPTY_ARRAY;
+  }
+
+  @NotNull
+  @Override
+  public String[] getAllFileNames() {
+    return ArrayUtil.EMPTY_STRING_ARRAY;
+  }
+
+  @NotNull
+  private List<PsiClass> annotatedClasses(@NotNull String annotation, @NotNull GlobalSearchScope scope) {
+    JavaPsiFacade facade = JavaPsiFacade.getInstance(project);
+    List<PsiClass> result = new ArrayList<>();
+    for (String className : indexService().getAnnotatedClasses(annotation)) {
+      for (PsiClass clazz : facade.findClasses(className, scope)) {
+        result.add(clazz);
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  private static String annotationOf(@NotNull String methodName) {
+    if (INSTANCE_METHOD.equals(methodName)) {
+      return INSTANCE;
+    }
+    for (String name : HIGHER_KIND_METHODS) {
+      if (name.equals(methodName)) {
+        return HIGHER_KIND;
+      }
+    }
+    return null;
+  }
+
+  private boolean isNotReady() {
+    return DumbService.isDumb(project);
+  }
+
+  @NotNull
+  private AnnotationIndexService indexService() {
+    return AnnotationIndexService.getInstance(project);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.psi.PsiClass;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports every traced augmentation step as a Java Flight Recorder event, when the runtime has JFR
+ * and a recording enables it, and logs a warning naming the class when a step takes longer than the
+ * {@code purefun.slow.operation.ms} registry value.
+ */
+public final class PurefunTracing {
+
+  public static final String COMPUTE_AUGMENTS = "PurefunProvider.getAugments";
+  public static final String HIGHER_RESOLVE = "HigherKindGenerator.resolve";
+
+  private static final String SLOW_OPERATION_KEY = "purefun.slow.operation.ms";
+  private static final int DEFAULT_SLOW_OPERATION_MS = 200;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PurefunTracing.class);
+
+  private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+  private PurefunTracing() {}
+
+  public static void trace(@NotNull String operation, @NotNull PsiClass clazz, long elapsedNanos) {
+    if (JFR_AVAILABLE) {
+      FlightRecorderEvents.commit(operation, clazz, elapsedNanos);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    if (elapsedMillis >= slowOperationMillis()) {
+      LOGGER.warn("purefun {} took {} ms for {}", operation, elapsedMillis, clazz.getQualifiedName());
+    }
+  }
+
+  private static int slowOperationMillis() {
+    try {
+      return Registry.intValue(SLOW_OPERATION_KEY, DEFAULT_SLOW_OPERATION_MS);
+    } catch (RuntimeException e) {
+      return DEFAULT_SLOW_OPERATION_MS;
+    }
+  }
+
+  private static boolean isJfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder", false, PurefunTracing.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Only loaded once JFR is known to be available.
+   */
+  private static final class FlightRecorderEvents {
+
+    private static final EventType TYPE = EventType.getEventType(AugmentationEvent.class);
+
+    static void commit(String operation, PsiClass clazz, long elapsedNanos) {
+      if (TYPE.isEnabled()) {
+        AugmentationEvent event = new AugmentationEvent();
+        event.operation = operation;
+        event.className = clazz.getQualifiedName();
+        event.arity = clazz.getTypeParameters().length;
+        event.elapsed = elapsedNanos;
+        event.commit();
+      }
+    }
+  }
+
+  @Name("com.github.tonivade.purefun.Augmentation")
+  @Label("Purefun Augmentation")
+  @Category("Purefun")
+  @Description("One purefun augmentation step for an annotated class")
+  static final class AugmentationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Class")
+    String className;
+
+    @Label("Arity")
+    int arity;
+
+    // not "duration", which every JFR event already declares
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+  }
+}
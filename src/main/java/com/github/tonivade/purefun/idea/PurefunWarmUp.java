@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.concurrency.CancellablePromise;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PurefunWarmUp implements StartupActivity {
+
+  /**
+   * System property that turns the warm-up off, so a profiling run measures its own cold pass.
+   */
+  public static final String DISABLED_PROPERTY = "purefun.warmup.disabled";
+
+  @Override
+  public void runActivity(@NotNull Project project) {
+    if (Boolean.getBoolean(DISABLED_PROPERTY) || ApplicationManager.getApplication().isUnitTestMode()) {
+      return;
+    }
+    DumbService.getInstance(project).runWhenSmart(() -> {
+      if (!project.isDisposed()) {
+        ProgressManager.getInstance().run(new WarmUpTask(project));
+      }
+    });
+  }
+}
+
+class WarmUpTask extends Task.Backgroundable {
+
+  WarmUpTask(@NotNull Project project) {
+    super(project, "Warming up purefun augments", true);
+  }
+
+  @Override
+  public void run(@NotNull ProgressIndicator indicator) {
+    Project project = getProject();
+    indicator.setIndeterminate(false);
+    indicator.setText("Looking for purefun annotated classes");
+    Set<String> classNames = ReadAction.nonBlocking(() -> annotatedClasses(project))
+        .inSmartMode(project)
+        .wrapProgress(indicator)
+        .expireWith(project)
+        .executeSynchronously();
+
+    int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Purefun Warm-up", parallelism);
+    CountDownLatch latch = new CountDownLatch(classNames.size());
+    AtomicInteger processed = new AtomicInteger();
+    List<CancellablePromise<Void>> promises = new ArrayList<>(classNames.size());
+    indicator.setText("Computing purefun augments");
+    try {
+      for (String className : classNames) {
+        CancellablePromise<Void> promise = ReadAction.nonBlocking(() -> warmUp(project, className))
+            .inSmartMode(project)
+            .wrapProgress(indicator)
+            .expireWith(project)
+            .submit(executor);
+        promise.onProcessed(ignore -> {
+          indicator.setFraction((double) processed.incrementAndGet() / classNames.size());
+          latch.countDown();
+        });
+        promises.add(promise);
+      }
+      while (!latch.await(50, TimeUnit.MILLISECONDS)) {
+        indicator.checkCanceled();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      promises.forEach(promise -> promise.cancel());
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Uses the indexed descriptors so classes that would get nothing generated are skipped.
+   */
+  @NotNull
+  private static Set<String> annotatedClasses(@NotNull Project project) {
+    AnnotationIndexService indexService = AnnotationIndexService.getInstance(project);
+    AugmentGenerators generators = AugmentGenerators.getInstance();
+    Set<String> classNames = new TreeSet<>();
+    for (String annotation : generators.getAnnotations()) {
+      for (ClassDescriptor descriptor : indexService.getDescriptors(annotation)) {
+        if (generators.generatesFor(annotation, descriptor)) {
+          classNames.add(descriptor.getQualifiedName());
+        }
+      }
+    }
+    return classNames;
+  }
+
+  private static Void warmUp(@NotNull Project project, @NotNull String className) {
+    for (PsiClass clazz : JavaPsiFacade.getInstance(project).findClasses(className, GlobalSearchScope.allScope(project))) {
+      PurefunProvider.getAugments(clazz);
+    }
+    return null;
+  }
+}
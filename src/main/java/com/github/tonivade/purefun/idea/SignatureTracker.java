@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiImportList;
+import com.intellij.psi.PsiImportStatement;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiModifierList;
+import com.intellij.psi.PsiReferenceList;
+import com.intellij.psi.PsiTypeParameter;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Modification tracker of the parts of a class the generated augments depend on: name, type parameters,
+ * annotations, extends/implements lists, INSTANCE field and the imports of its file, which decide what an
+ * unqualified annotation refers to. Edits anywhere else in the class do not change it.
+ */
+final class SignatureTracker implements ModificationTracker {
+
+  static final Key<SignatureTracker> TRACKER = Key.create("purefun.signature.tracker");
+
+  private final AtomicLong modificationCount = new AtomicLong();
+  private final CachedValue<String> currentSignature;
+
+  private volatile String signature;
+
+  private SignatureTracker(PsiClass clazz) {
+    requireNonNull(clazz);
+    this.currentSignature = CachedValuesManager.getManager(clazz.getProject())
+        .createCachedValue(() -> Result.create(signatureOf(clazz), clazz), false);
+  }
+
+  @NotNull
+  static SignatureTracker of(@NotNull PsiClass clazz) {
+    SignatureTracker tracker = clazz.getUserData(TRACKER);
+    if (tracker == null) {
+      tracker = UserDataUtil.putIfAbsent(clazz, TRACKER, new SignatureTracker(clazz));
+    }
+    return tracker;
+  }
+
+  @Override
+  public long getModificationCount() {
+    String current = currentSignature.getValue();
+    if (!Objects.equals(current, signature)) {
+      synchronized (this) {
+        if (!Objects.equals(current, signature)) {
+          signature = current;
+          modificationCount.incrementAndGet();
+        }
+      }
+    }
+    return modificationCount.get();
+  }
+
+  @NotNull
+  private static String signatureOf(@NotNull PsiClass clazz) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(clazz.getQualifiedName()).append(clazz.isInterface() ? "#I" : "#C");
+    for (PsiTypeParameter typeParameter : clazz.getTypeParameters()) {
+      builder.append('<').append(typeParameter.getName()).append('@').append(System.identityHashCode(typeParameter));
+      append(builder, typeParameter.getExtendsList());
+    }
+    PsiModifierList modifierList = clazz.getModifierList();
+    if (modifierList != null) {
+      for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+        PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+        builder.append('@').append(reference != null ? reference.getText() : null);
+      }
+    }
+    append(builder.append("#E"), clazz.getExtendsList());
+    append(builder.append("#I"), clazz.getImplementsList());
+    builder.append(AlreadyDefined.instance(clazz) ? "#F" : "");
+    appendImports(builder.append("#P"), clazz.getContainingFile());
+    return builder.toString();
+  }
+
+  private static void appendImports(@NotNull StringBuilder builder, @Nullable PsiFile file) {
+    if (file instanceof PsiJavaFile) {
+      PsiJavaFile javaFile = (PsiJavaFile) file;
+      builder.append(javaFile.getPackageName());
+      PsiImportList importList = javaFile.getImportList();
+      if (importList != null) {
+        for (PsiImportStatement statement : importList.getImportStatements()) {
+          builder.append(',').append(statement.getQualifiedName()).append(statement.isOnDemand() ? ".*" : "");
+        }
+      }
+    }
+  }
+
+  private static void append(@NotNull StringBuilder builder, @Nullable PsiReferenceList list) {
+    if (list != null) {
+      for (PsiJavaCodeReferenceElement reference : list.getReferenceElements()) {
+        builder.append(',').append(reference.getText());
+      }
+    }
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.util.UserDataHolderEx;
+import org.jetbrains.annotations.NotNull;
+
+final class UserDataUtil {
+
+  private UserDataUtil() {}
+
+  @NotNull
+  static <T> T putIfAbsent(@NotNull UserDataHolder holder, @NotNull Key<T> key, @NotNull T value) {
+    if (holder instanceof UserDataHolderEx) {
+      return ((UserDataHolderEx) holder).putUserDataIfAbsent(key, value);
+    }
+    synchronized (holder) {
+      T current = holder.getUserData(key);
+      if (current == null) {
+        holder.putUserData(key, value);
+        current = value;
+      }
+      return current;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElementFinder;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static com.github.tonivade.purefun.idea.PurefunAnnotations.HIGHER_KIND;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Resolves {@code Outer.µ} to the cached witness of a {@code @HigherKind} class, computing only the
+ * generated classes of the outer class and none of its methods.
+ */
+public class WitnessElementFinder extends PsiElementFinder {
+
+  private static final String WITNESS = "µ";
+  private static final String WITNESS_SUFFIX = "." + WITNESS;
+
+  private final Project project;
+
+  public WitnessElementFinder(Project project) {
+    this.project = requireNonNull(project);
+  }
+
+  @Nullable
+  @Override
+  public PsiClass findClass(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
+    if (!qualifiedName.endsWith(WITNESS_SUFFIX) || DumbService.isDumb(project)) {
+      return null;
+    }
+    String outerName = qualifiedName.substring(0, qualifiedName.length() - WITNESS_SUFFIX.length());
+    if (!AnnotationIndexService.getInstance(project).getAnnotatedClasses(HIGHER_KIND).contains(outerName)) {
+      return null;
+    }
+    for (PsiClass outer : JavaPsiFacade.getInstance(project).findClasses(outerName, scope)) {
+      for (PsiClass witness : PurefunProvider.getClasses(outer)) {
+        if (WITNESS.equals(witness.getName())) {
+          return witness;
+        }
+      }
+    }
+    return null;
+  }
+
+  @NotNull
+  @Override
+  public PsiClass[] findClasses(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
+    // the default finder already reaches the same cached witness through the outer class
+    return PsiClass.EMPTY_ARRAY;
+  }
+}
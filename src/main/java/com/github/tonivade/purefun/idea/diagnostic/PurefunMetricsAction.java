@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.diagnostic;
+
+import com.github.tonivade.purefun.idea.PurefunMetrics;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import org.jetbrains.annotations.NotNull;
+
+public class PurefunMetricsAction extends AnAction {
+
+  @Override
+  public void update(@NotNull AnActionEvent event) {
+    event.getPresentation().setEnabled(event.getProject() != null);
+  }
+
+  @Override
+  public void actionPerformed(@NotNull AnActionEvent event) {
+    Project project = event.getProject();
+    if (project == null) {
+      return;
+    }
+    PurefunMetrics metrics = PurefunMetrics.getInstance(project);
+    int answer = Messages.showYesNoDialog(project, metrics.format(), "Purefun Metrics",
+        "Reset", "Close", Messages.getInformationIcon());
+    if (answer == Messages.YES) {
+      metrics.reset();
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.diagnostic;
+
+import com.github.tonivade.purefun.idea.PurefunAugments;
+import com.github.tonivade.purefun.idea.PurefunMetrics;
+import com.github.tonivade.purefun.idea.PurefunProvider;
+import com.google.gson.GsonBuilder;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.light.LightElement;
+import com.intellij.psi.impl.source.PsiExtensibleClass;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static java.util.Objects.requireNonNull;
+
+final class PurefunProfiler {
+
+  private static final String PLUGIN_ID = "com.github.tonivade.purefun.plugin.id";
+  private static final int SLOWEST = 20;
+
+  private final Project project;
+
+  PurefunProfiler(Project project) {
+    this.project = requireNonNull(project);
+  }
+
+  /**
+   * Runs a cold pass, where every augment is computed, and then a warm pass over the same classes,
+   * where every augment should come from the caches. Metrics are reset only between passes.
+   */
+  @NotNull
+  Map<String, Object> profile() {
+    Collection<PsiClass> classes = ReadAction.compute(this::projectClasses);
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("project", project.getName());
+    report.put("pluginVersion", pluginVersion());
+    report.put("purefunLibraries", ReadAction.compute(this::purefunLibraries));
+    report.put("classes", classes.size());
+    report.put("cold", pass(classes, true));
+    report.put("warm", pass(classes, false));
+    return report;
+  }
+
+  @NotNull
+  private Map<String, Object> pass(@NotNull Collection<PsiClass> classes, boolean details) {
+    PurefunMetrics metrics = PurefunMetrics.getInstance(project);
+    metrics.reset();
+    List<Sample> samples = new ArrayList<>(classes.size());
+    long start = System.nanoTime();
+    for (PsiClass clazz : classes) {
+      samples.add(ReadAction.compute(() -> sample(clazz)));
+    }
+    long total = System.nanoTime() - start;
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("classesWithAugments", samples.stream().filter(sample -> sample.augments > 0).count());
+    result.put("totalMicros", total / 1000);
+    result.put("higherLookups", metrics.getHigherLookups());
+    result.put("slowest", toJson(slowest(samples)));
+    if (details) {
+      result.put("perClass", toJson(withAugments(samples)));
+    }
+    result.put("metrics", metrics.snapshot());
+    return result;
+  }
+
+  /**
+   * Physical classes of the project's Java files, read from the files themselves. Class searches go
+   * through the short names caches, which would compute the µ witnesses before the cold pass and
+   * return them as classes to profile.
+   */
+  @NotNull
+  List<PsiClass> projectClasses() {
+    PsiManager psiManager = PsiManager.getInstance(project);
+    List<PsiClass> result = new ArrayList<>();
+    for (VirtualFile file : FileTypeIndex.getFiles(JavaFileType.INSTANCE, GlobalSearchScope.projectScope(project))) {
+      PsiFile psiFile = psiManager.findFile(file);
+      if (psiFile instanceof PsiJavaFile) {
+        for (PsiClass clazz : ((PsiJavaFile) psiFile).getClasses()) {
+          addWithInner(clazz, result);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Only the classes declared in the file: getInnerClasses would also return generated ones.
+   */
+  private static void addWithInner(@NotNull PsiClass clazz, @NotNull List<PsiClass> result) {
+    if (!clazz.isPhysical() || clazz instanceof LightElement) {
+      return;
+    }
+    result.add(clazz);
+    if (clazz instanceof PsiExtensibleClass) {
+      for (PsiClass inner : ((PsiExtensibleClass) clazz).getOwnInnerClasses()) {
+        addWithInner(inner, result);
+      }
+    }
+  }
+
+  void write(@NotNull Map<String, Object> report, @NotNull Path output) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+      new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(report, writer);
+    }
+  }
+
+  @NotNull
+  private static Sample sample(@NotNull PsiClass clazz) {
+    long start = System.nanoTime();
+    PurefunAugments augments = PurefunProvider.getAugments(clazz);
+    long nanos = System.nanoTime() - start;
+    return new Sample(String.valueOf(clazz.getQualifiedName()), nanos, augments.getClasses().size() + augments.getMethods().size());
+  }
+
+  @NotNull
+  private static List<Sample> slowest(@NotNull List<Sample> samples) {
+    List<Sample> result = new ArrayList<>(samples);
+    result.sort(Comparator.comparingLong((Sample sample) -> sample.nanos).reversed());
+    return result.subList(0, Math.min(SLOWEST, result.size()));
+  }
+
+  @NotNull
+  private static List<Sample> withAugments(@NotNull List<Sample> samples) {
+    List<Sample> result = new ArrayList<>();
+    for (Sample sample : samples) {
+      if (sample.augments > 0) {
+        result.add(sample);
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  private static List<Map<String, Object>> toJson(@NotNull List<Sample> samples) {
+    List<Map<String, Object>> result = new ArrayList<>(samples.size());
+    for (Sample sample : samples) {
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("class", sample.className);
+      item.put("micros", sample.nanos / 1000);
+      item.put("augments", sample.augments);
+      result.add(item);
+    }
+    return result;
+  }
+
+  @NotNull
+  private Collection<String> purefunLibraries() {
+    Collection<String> result = new TreeSet<>();
+    OrderEnumerator.orderEntries(project).librariesOnly().forEachLibrary(library -> {
+      String name = library.getName();
+      if (name != null && name.contains("purefun")) {
+        result.add(name);
+      }
+      return true;
+    });
+    return result;
+  }
+
+  @Nullable
+  private static String pluginVersion() {
+    IdeaPluginDescriptor plugin = PluginManagerCore.getPlugin(PluginId.getId(PLUGIN_ID));
+    return plugin != null ? plugin.getVersion() : null;
+  }
+
+  private static final class Sample {
+
+    private final String className;
+    private final long nanos;
+    private final int augments;
+
+    private Sample(String className, long nanos, int augments) {
+      this.className = className;
+      this.nanos = nanos;
+      this.augments = augments;
+    }
+  }
+}
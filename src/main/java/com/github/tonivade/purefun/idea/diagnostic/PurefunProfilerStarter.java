@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.diagnostic;
+
+import com.github.tonivade.purefun.idea.PurefunWarmUp;
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ex.ApplicationEx;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Headless command {@code purefun-profile <project path> <report.json>}: opens the project, waits for
+ * indexing, forces purefun augmentation of every project class twice, cold and then warm, and writes a
+ * JSON report. The startup warm-up is disabled so it does not compete with the cold pass.
+ */
+public class PurefunProfilerStarter implements ApplicationStarter {
+
+  private final Logger logger = LoggerFactory.getLogger(PurefunProfilerStarter.class);
+
+  @Override
+  public String getCommandName() {
+    return "purefun-profile";
+  }
+
+  @Override
+  public void main(@NotNull String[] args) {
+    if (args.length != 3) {
+      System.err.println("usage: " + getCommandName() + " <project path> <report.json>");
+      exit(1);
+      return;
+    }
+    // the warm-up would compute the same augments concurrently with the cold pass
+    System.setProperty(PurefunWarmUp.DISABLED_PROPERTY, "true");
+    Project project = ProjectUtil.openOrImport(args[1], null, false);
+    if (project == null) {
+      System.err.println("cannot open project: " + args[1]);
+      exit(1);
+      return;
+    }
+    Path output = Paths.get(args[2]);
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      int status = 0;
+      try {
+        DumbService.getInstance(project).waitForSmartMode();
+        PurefunProfiler profiler = new PurefunProfiler(project);
+        Map<String, Object> report = profiler.profile();
+        profiler.write(report, output);
+        System.out.println("purefun profile written to " + output.toAbsolutePath());
+      } catch (Exception e) {
+        logger.error("purefun profile failed", e);
+        status = 1;
+      }
+      int exitCode = status;
+      ApplicationManager.getApplication().invokeLater(() -> exit(exitCode));
+    });
+  }
+
+  private static void exit(int status) {
+    ApplicationEx application = (ApplicationEx) ApplicationManager.getApplication();
+    application.exit(true, true);
+    if (status != 0) {
+      System.exit(status);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.github.tonivade.purefun.idea.AnnotationIndexService;
+import com.github.tonivade.purefun.idea.ClassDescriptor;
+import com.github.tonivade.purefun.idea.PurefunAnnotations;
+import com.github.tonivade.purefun.idea.PurefunModificationTracker;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiCompiledElement;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiModifierList;
+import com.intellij.psi.impl.java.stubs.index.JavaAnnotationIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+
+public class AnnotationIndexServiceImpl implements AnnotationIndexService {
+
+  private final ConcurrentMap<String, Key<CachedValue<Set<String>>>> keys = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Key<CachedValue<Collection<ClassDescriptor>>>> descriptorKeys = new ConcurrentHashMap<>();
+
+  private final Project project;
+
+  public AnnotationIndexServiceImpl(Project project) {
+    this.project = requireNonNull(project);
+  }
+
+  @Override
+  public boolean isAnnotated(@NotNull PsiClass clazz, @NotNull String annotation) {
+    if (DumbService.isDumb(project)) {
+      PsiFile file = clazz.getContainingFile();
+      if (file instanceof PsiJavaFile && !(file instanceof PsiCompiledElement)) {
+        return PurefunAnnotations.isAnnotated((PsiJavaFile) file, clazz, annotation);
+      }
+      return clazz.hasAnnotation(annotation);
+    }
+    if (!isIndexed(clazz)) {
+      return clazz.hasAnnotation(annotation);
+    }
+    return indexedDescriptor(clazz, annotation) != null;
+  }
+
+  @Nullable
+  @Override
+  public ClassDescriptor getDescriptor(@NotNull PsiClass clazz, @NotNull String annotation) {
+    if (!DumbService.isDumb(project) && isIndexed(clazz)) {
+      return indexedDescriptor(clazz, annotation);
+    }
+    return isAnnotated(clazz, annotation) ? ClassDescriptor.of(clazz) : null;
+  }
+
+  @NotNull
+  @Override
+  public Set<String> getAnnotatedClasses(@NotNull String annotation) {
+    Key<CachedValue<Set<String>>> key = keys.computeIfAbsent(annotation, name -> Key.create("purefun.annotated." + name));
+    return CachedValuesManager.getManager(project).getCachedValue(project, key,
+        () -> Result.create(collect(annotation), PurefunModificationTracker.getInstance(project),
+            ProjectRootModificationTracker.getInstance(project), DumbService.getInstance(project).getModificationTracker()), false);
+  }
+
+  @NotNull
+  @Override
+  public Collection<ClassDescriptor> getDescriptors(@NotNull String annotation) {
+    Key<CachedValue<Collection<ClassDescriptor>>> key =
+        descriptorKeys.computeIfAbsent(annotation, name -> Key.create("purefun.descriptors." + name));
+    return CachedValuesManager.getManager(project).getCachedValue(project, key,
+        () -> Result.create(collectDescriptors(annotation), PsiModificationTracker.SERVICE.getInstance(project),
+            ProjectRootModificationTracker.getInstance(project), DumbService.getInstance(project).getModificationTracker()), false);
+  }
+
+  @NotNull
+  private Set<String> collect(@NotNull String annotation) {
+    Set<String> result = new HashSet<>();
+    for (PsiClass clazz : annotatedClasses(annotation)) {
+      result.add(clazz.getQualifiedName());
+    }
+    return unmodifiableSet(result);
+  }
+
+  @NotNull
+  private Collection<ClassDescriptor> collectDescriptors(@NotNull String annotation) {
+    if (DumbService.isDumb(project)) {
+      return emptyList();
+    }
+    List<ClassDescriptor> result = new ArrayList<>();
+    for (List<ClassDescriptor> descriptors
+        : FileBasedIndex.getInstance().getValues(PurefunAnnotationIndex.NAME, annotation, GlobalSearchScope.allScope(project))) {
+      result.addAll(descriptors);
+    }
+    return unmodifiableList(result);
+  }
+
+  /**
+   * Reads only the entries of the class's own file, so no other file or class is looked at.
+   */
+  @Nullable
+  private ClassDescriptor indexedDescriptor(@NotNull PsiClass clazz, @NotNull String annotation) {
+    String qualifiedName = clazz.getQualifiedName();
+    VirtualFile file = PsiUtilCore.getVirtualFile(clazz);
+    if (qualifiedName == null || file == null) {
+      return null;
+    }
+    for (List<ClassDescriptor> descriptors
+        : FileBasedIndex.getInstance().getValues(PurefunAnnotationIndex.NAME, annotation, GlobalSearchScope.fileScope(project, file))) {
+      for (ClassDescriptor descriptor : descriptors) {
+        if (qualifiedName.equals(descriptor.getQualifiedName())) {
+          return descriptor;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Looks the annotation up by short name in the platform's annotation stub index and keeps the classes
+   * where its imports resolve the short name to {@code annotation}. Everything is read from stubs, so
+   * no file is parsed.
+   */
+  @NotNull
+  private List<PsiClass> annotatedClasses(@NotNull String annotation) {
+    Collection<PsiAnnotation> annotations = JavaAnnotationIndex.getInstance()
+        .get(PurefunAnnotations.shortName(annotation), project, GlobalSearchScope.allScope(project));
+    List<PsiClass> result = new ArrayList<>();
+    for (PsiAnnotation candidate : annotations) {
+      PsiElement owner = candidate.getParent() instanceof PsiModifierList ? candidate.getParent().getParent() : null;
+      PsiFile file = candidate.getContainingFile();
+      if (owner instanceof PsiClass && ((PsiClass) owner).getQualifiedName() != null && file instanceof PsiJavaFile
+          && annotation.equals(PurefunAnnotations.qualifiedNameOf((PsiJavaFile) file, candidate))) {
+        result.add((PsiClass) owner);
+      }
+    }
+    return result;
+  }
+
+  private boolean isIndexed(@NotNull PsiClass clazz) {
+    if (clazz instanceof PsiCompiledElement || !clazz.isPhysical()) {
+      return false;
+    }
+    VirtualFile file = PsiUtilCore.getVirtualFile(clazz);
+    return file != null && ProjectFileIndex.getInstance(project).isInSource(file);
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.github.tonivade.purefun.idea.PurefunMetrics;
+import com.github.tonivade.purefun.idea.PurefunTracing;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementFactory;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiSubstitutor;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.PsiTypeParameter;
+import com.intellij.psi.impl.file.impl.JavaFileManager;
+import com.intellij.psi.impl.light.LightMethodBuilder;
+import com.intellij.psi.impl.light.LightPsiClassBuilder;
+import com.intellij.psi.impl.light.LightTypeParameterBuilder;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.intellij.psi.PsiSubstitutor.EMPTY;
+import static com.intellij.psi.util.CachedValuesManager.getCachedValue;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+public class HigherKindGenerator {
+
+  private static final String KIND = "com.github.tonivade.purefun.Kind";
+  private static final String HIGHER = "com.github.tonivade.purefun.Higher";
+  private static final String KIND_METHOD = "kind";
+  private static final String NARROW_KIND = "narrowK";
+  private static final String HIGHER_KIND_TYPE = "hkt";
+  private static final String WITNESS = "µ";
+  private static final int MAX_HIGHER = 3;
+
+  private static final Key<CachedValue<PsiClassType>> WITNESS_TYPE = Key.create("purefun.witness.type");
+
+  private final PsiElementFactory factory;
+  private final PurefunLightMethodFactory methodFactory;
+  private final JavaFileManager fileManager;
+  private final ProjectRootModificationTracker rootTracker;
+  private final PurefunMetrics metrics;
+  private final DumbService dumbService;
+
+  private final ConcurrentMap<GlobalSearchScope, Symbols> symbolsByScope = new ConcurrentHashMap<>();
+  private volatile long symbolsStamp = -1;
+
+  public HigherKindGenerator(Project project) {
+    this(project, PurefunLightMethodFactory.getInstance(project));
+  }
+
+  HigherKindGenerator(Project project, PurefunLightMethodFactory methodFactory) {
+    this.factory = PsiElementFactory.getInstance(project);
+    this.methodFactory = requireNonNull(methodFactory);
+    this.fileManager = JavaFileManager.getInstance(project);
+    this.rootTracker = ProjectRootModificationTracker.getInstance(project);
+    this.metrics = PurefunMetrics.getInstance(project);
+    this.dumbService = DumbService.getInstance(project);
+  }
+
+  static HigherKindGenerator getInstance(Project project) {
+    return ServiceManager.getService(project, HigherKindGenerator.class);
+  }
+
+  /**
+   * While indexing Kind and Higher1/2/3 cannot be looked up, so they are assumed to be there and the
+   * generated types refer to them by name, to be resolved once smart mode returns.
+   */
+  boolean isAvailable(PsiClass clazz) {
+    return dumbService.isDumb() || symbols(clazz).isAvailable();
+  }
+
+  @NotNull
+  List<PsiMethod> generateMethods(PsiClass clazz) {
+    return generateMethods(clazz, null);
+  }
+
+  /**
+   * Generates the narrowK/kindN methods, or only the ones called {@code name} if it is not null.
+   */
+  @NotNull
+  List<PsiMethod> generateMethods(PsiClass clazz, @Nullable String name) {
+    PsiTypeParameter[] typeParameters = clazz.getTypeParameters();
+    ArityTemplate template = ArityTemplate.of(typeParameters.length);
+    boolean narrowK = name == null || NARROW_KIND.equals(name);
+    boolean kind = name == null || name.startsWith(KIND_METHOD);
+    if (!narrowK && !kind) {
+      return emptyList();
+    }
+    PsiClassType witness = witnessOf(clazz);
+    List<PsiMethod> methods = new ArrayList<>(template.shapes.size() * 2);
+    if (narrowK) {
+      for (Shape shape : template.shapes) {
+        methods.add(generateNarrowK(clazz, template, witness, shape));
+      }
+    }
+    if (kind) {
+      for (Shape shape : template.shapes) {
+        if (name == null || name.equals(KIND_METHOD + shape.higher)) {
+          methods.add(generateKind(clazz, witness, shape));
+        }
+      }
+    }
+    return methods;
+  }
+
+  @NotNull
+  List<PsiClass> generateWitness(PsiClass clazz) {
+    LightPsiClassBuilder witness = new LightPsiClassBuilder(clazz, WITNESS);
+    witness.setContainingClass(clazz);
+    witness.getModifierList().addModifier(PsiModifier.PUBLIC);
+    witness.getModifierList().addModifier(PsiModifier.STATIC);
+    witness.getModifierList().addModifier(PsiModifier.FINAL);
+    if (dumbService.isDumb()) {
+      witness.getImplementsList().addReference(KIND);
+    } else {
+      witness.getImplementsList().addReference(symbols(clazz).kind);
+    }
+    return singletonList(witness);
+  }
+
+  @NotNull
+  private PsiMethod generateNarrowK(PsiClass clazz, ArityTemplate template, PsiClassType witness, Shape shape) {
+    LightMethodBuilder narrowK = methodFactory.staticMethod(clazz, NARROW_KIND, true);
+    for (int i = 0; i < template.typeParameterNames.length; i++) {
+      narrowK.addTypeParameter(new LightTypeParameterBuilder(template.typeParameterNames[i], narrowK, i));
+    }
+    PsiTypeParameter[] params = narrowK.getTypeParameters();
+    narrowK.setMethodReturnType(returnType(clazz, params));
+    narrowK.addParameter(HIGHER_KIND_TYPE, higherOf(clazz, witness, shape, params, narrowK));
+    return narrowK;
+  }
+
+  @NotNull
+  private PsiMethod generateKind(PsiClass clazz, PsiClassType witness, Shape shape) {
+    LightMethodBuilder method = methodFactory.instanceMethod(clazz, KIND_METHOD + shape.higher);
+    method.setMethodReturnType(higherOf(clazz, witness, shape, clazz.getTypeParameters(), clazz));
+    return method;
+  }
+
+  @NotNull
+  private PsiClassType returnType(PsiClass clazz, PsiTypeParameter[] params) {
+    PsiTypeParameter[] typeParameters = clazz.getTypeParameters();
+    PsiSubstitutor substitutor = EMPTY;
+    for (int i = 0; i < typeParameters.length; i++) {
+      substitutor = substitutor.put(typeParameters[i], factory.createType(params[i]));
+    }
+    return factory.createType(clazz, substitutor);
+  }
+
+  @NotNull
+  private PsiClassType higherOf(PsiClass clazz, PsiClassType witness, Shape shape,
+                                PsiTypeParameter[] params, PsiElement context) {
+    if (dumbService.isDumb()) {
+      return higherOfText(witness, shape, params, context);
+    }
+    Symbols symbols = symbols(clazz);
+    PsiClassType base = witness;
+    for (int i = 0; i < shape.nested; i++) {
+      base = higherOf(symbols, 1, base, params, i);
+    }
+    return higherOf(symbols, shape.higher, base, params, shape.nested);
+  }
+
+  @NotNull
+  private PsiClassType higherOf(Symbols symbols, int higher, PsiType base, PsiTypeParameter[] params, int from) {
+    PsiClass higherClass = symbols.higher[higher];
+    PsiTypeParameter[] typeParameters = higherClass.getTypeParameters();
+    PsiSubstitutor substitutor = EMPTY.put(typeParameters[0], base);
+    for (int i = 1; i < typeParameters.length; i++) {
+      substitutor = substitutor.put(typeParameters[i], factory.createType(params[from + i - 1]));
+    }
+    return factory.createType(higherClass, substitutor);
+  }
+
+  @NotNull
+  private PsiClassType higherOfText(PsiClassType witness, Shape shape, PsiTypeParameter[] params, PsiElement context) {
+    String base = witness.getCanonicalText();
+    for (int i = 0; i < shape.nested; i++) {
+      base = higherText(1, base, params, i);
+    }
+    return (PsiClassType) factory.createTypeFromText(higherText(shape.higher, base, params, shape.nested), context);
+  }
+
+  @NotNull
+  private static String higherText(int higher, String base, PsiTypeParameter[] params, int from) {
+    StringBuilder text = new StringBuilder(HIGHER).append(higher).append('<').append(base);
+    for (int i = 0; i < higher; i++) {
+      text.append(", ").append(params[from + i].getName());
+    }
+    return text.append('>').toString();
+  }
+
+  @NotNull
+  private PsiClassType witnessOf(PsiClass clazz) {
+    return getCachedValue(clazz, WITNESS_TYPE, () -> Result.create(createWitnessType(clazz), clazz, rootTracker));
+  }
+
+  @NotNull
+  private PsiClassType createWitnessType(PsiClass clazz) {
+    return factory.createTypeByFQClassName(clazz.getQualifiedName() + "." + WITNESS, clazz.getResolveScope());
+  }
+
+  /**
+   * Kind and Higher1/2/3 as seen from the class's resolve scope, so every module gets the purefun
+   * version on its own classpath. One lookup per module and library set, dropped when roots change.
+   */
+  @NotNull
+  private Symbols symbols(PsiClass clazz) {
+    long stamp = rootTracker.getModificationCount();
+    if (symbolsStamp != stamp) {
+      symbolsByScope.clear();
+      symbolsStamp = stamp;
+    }
+    GlobalSearchScope scope = clazz.getResolveScope();
+    Symbols current = symbolsByScope.get(scope);
+    if (current == null || current.stamp != stamp || !current.isValid()) {
+      metrics.higherLookup();
+      long start = metrics.start();
+      PsiClass[] higher = new PsiClass[MAX_HIGHER + 1];
+      for (int i = 1; i <= MAX_HIGHER; i++) {
+        higher[i] = fileManager.findClass(HIGHER + i, scope);
+      }
+      current = new Symbols(stamp, fileManager.findClass(KIND, scope), higher);
+      symbolsByScope.put(scope, current);
+      metrics.record(PurefunTracing.HIGHER_RESOLVE, clazz, start);
+    }
+    return current;
+  }
+
+  /**
+   * Arity specific layout: for a class with n type parameters, the type parameter names and one
+   * narrowK/kindN shape for every HigherN view, from Higher3 (or Higher n if n &lt; 3) down to Higher1,
+   * nesting the leading type parameters inside Higher1 witnesses. Only this layout is shared per
+   * arity; the light methods and their Higher types are still built for every class.
+   */
+  static final class ArityTemplate {
+
+    private static final ConcurrentMap<Integer, ArityTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    final String[] typeParameterNames;
+    final List<Shape> shapes;
+
+    private ArityTemplate(int arity) {
+      this.typeParameterNames = new String[arity];
+      for (int i = 0; i < arity; i++) {
+        typeParameterNames[i] = arity <= 26 ? String.valueOf((char) ('A' + i)) : "A" + i;
+      }
+      List<Shape> list = new ArrayList<>();
+      for (int higher = Math.min(arity, MAX_HIGHER); higher > 0; higher--) {
+        list.add(new Shape(higher, arity - higher));
+      }
+      this.shapes = unmodifiableList(list);
+    }
+
+    @NotNull
+    static ArityTemplate of(int arity) {
+      return TEMPLATES.computeIfAbsent(arity, ArityTemplate::new);
+    }
+  }
+
+  static final class Shape {
+
+    final int higher;
+    final int nested;
+
+    private Shape(int higher, int nested) {
+      this.higher = higher;
+      this.nested = nested;
+    }
+  }
+
+  private static final class Symbols {
+
+    private final long stamp;
+    private final PsiClass kind;
+    private final PsiClass[] higher;
+
+    private Symbols(long stamp, @Nullable PsiClass kind, PsiClass[] higher) {
+      this.stamp = stamp;
+      this.kind = kind;
+      this.higher = higher;
+    }
+
+    boolean isAvailable() {
+      if (kind == null) {
+        return false;
+      }
+      for (int i = 1; i < higher.length; i++) {
+        if (higher[i] == null) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean isValid() {
+      if (kind != null && !kind.isValid()) {
+        return false;
+      }
+      for (PsiClass clazz : higher) {
+        if (clazz != null && !clazz.isValid()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.github.tonivade.purefun.idea.AugmentGenerator;
+import com.github.tonivade.purefun.idea.ClassDescriptor;
+import com.github.tonivade.purefun.idea.InstanceService;
+import com.github.tonivade.purefun.idea.PurefunAnnotations;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+public class InstanceAugmentGenerator implements AugmentGenerator {
+
+  @Override
+  public String getAnnotation() {
+    return PurefunAnnotations.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public List<PsiClass> processClass(@NotNull PsiClass clazz) {
+    return emptyList();
+  }
+
+  @NotNull
+  @Override
+  public List<PsiMethod> processMethod(@NotNull PsiClass clazz) {
+    return InstanceService.getInstance(clazz.getProject()).processMethod(clazz);
+  }
+
+  @NotNull
+  @Override
+  public List<PsiMethod> processMethod(@NotNull PsiClass clazz, @NotNull String name) {
+    return InstanceService.getInstance(clazz.getProject()).processMethod(clazz, name);
+  }
+
+  @Override
+  public boolean generatesFor(@NotNull ClassDescriptor descriptor) {
+    return !descriptor.isInstanceDefined();
+  }
+}
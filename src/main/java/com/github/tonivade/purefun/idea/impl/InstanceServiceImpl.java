@@ -4,21 +4,19 @@
  */
 package com.github.tonivade.purefun.idea.impl;
 
+import com.github.tonivade.purefun.idea.AlreadyDefined;
 import com.github.tonivade.purefun.idea.InstanceService;
+import com.github.tonivade.purefun.idea.PurefunMetrics;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiClassType;
 import com.intellij.psi.PsiElementFactory;
-import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.PsiModifier;
 import com.intellij.psi.PsiSubstitutor;
 import com.intellij.psi.PsiTypeParameter;
 import com.intellij.psi.impl.light.LightMethodBuilder;
 import com.intellij.psi.impl.light.LightTypeParameterBuilder;
 import org.jetbrains.annotations.NotNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
@@ -29,29 +27,36 @@ import static java.util.Objects.requireNonNull;
 
 public class InstanceServiceImpl implements InstanceService {
 
-  private static final String INSTANCE = "INSTANCE";
-
-  private final Logger logger = LoggerFactory.getLogger(InstanceServiceImpl.class);
-
   private final Project project;
+  private final InstanceGenerator generator;
 
   public InstanceServiceImpl(Project project) {
     this.project = requireNonNull(project);
+    this.generator = new InstanceGenerator(project);
   }
 
   @Override
   @NotNull
   public List<PsiMethod> processMethod(@NotNull PsiClass clazz) {
-    logger.info("process classes for: {}", clazz.getQualifiedName());
-    if (alreadyDefined(clazz)) {
-      logger.info("instance already defined: {}", clazz.getQualifiedName());
-      return emptyList();
+    PurefunMetrics metrics = PurefunMetrics.getInstance(project);
+    long start = metrics.start();
+    try {
+      if (AlreadyDefined.instance(clazz)) {
+        return emptyList();
+      }
+      return singletonList(generator.generateMethod(clazz));
+    } finally {
+      metrics.record(PurefunMetrics.INSTANCE_PROCESS, clazz, start);
     }
-    return singletonList(new InstanceGenerator(project).generateMethod(clazz));
   }
 
-  private boolean alreadyDefined(@NotNull PsiClass clazz) {
-    return clazz.findFieldByName(INSTANCE, true) != null;
+  @Override
+  @NotNull
+  public List<PsiMethod> processMethod(@NotNull PsiClass clazz, @NotNull String name) {
+    if (!InstanceGenerator.INSTANCE.equals(name)) {
+      return emptyList();
+    }
+    return processMethod(clazz);
   }
 }
 
@@ -60,11 +65,11 @@ class InstanceGenerator {
   public static final String INSTANCE = "instance";
 
   private final PsiElementFactory factory;
-  private final PsiManager psiManager;
+  private final PurefunLightMethodFactory methodFactory;
 
   InstanceGenerator(Project project) {
     this.factory = PsiElementFactory.getInstance(project);
-    this.psiManager = PsiManager.getInstance(project);
+    this.methodFactory = PurefunLightMethodFactory.getInstance(project);
   }
 
   @NotNull
@@ -76,10 +81,7 @@ class InstanceGenerator {
 
   @NotNull
   private LightMethodBuilder createMethod(PsiClass clazz) {
-    LightMethodBuilder instance = new LightMethodBuilder(psiManager, INSTANCE);
-    instance.setContainingClass(clazz);
-    instance.addModifier(PsiModifier.PUBLIC);
-    instance.addModifier(PsiModifier.STATIC);
+    LightMethodBuilder instance = methodFactory.staticMethod(clazz, INSTANCE, false);
     for (int i = 0; i < clazz.getTypeParameters().length ; i++) {
       instance.addTypeParameter(new LightTypeParameterBuilder("A" + i, instance, i));
     }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.github.tonivade.purefun.idea.AlreadyDefined;
+import com.github.tonivade.purefun.idea.ClassDescriptor;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.lang.LighterAST;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.psi.JavaTokenType;
+import com.intellij.psi.impl.source.JavaLightTreeUtil;
+import com.intellij.psi.impl.source.tree.ElementType;
+import com.intellij.psi.impl.source.tree.JavaElementType;
+import com.intellij.psi.impl.source.tree.LightTreeUtil;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.PsiDependentFileContent;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+
+/**
+ * Persists a {@link ClassDescriptor} for every class annotation, keyed by the qualified names the
+ * annotation may refer to given the file's package and imports. Only the light AST the stub builder
+ * already uses is read, no PSI is built, and the keys do not depend on the registered generators, so
+ * the index stays valid when one is added.
+ */
+public class PurefunAnnotationIndex extends FileBasedIndexExtension<String, List<ClassDescriptor>> {
+
+  public static final ID<String, List<ClassDescriptor>> NAME = ID.create("purefun.annotated.classes");
+
+  @NotNull
+  @Override
+  public ID<String, List<ClassDescriptor>> getName() {
+    return NAME;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, List<ClassDescriptor>, FileContent> getIndexer() {
+    return PurefunAnnotationIndex::index;
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<List<ClassDescriptor>> getValueExternalizer() {
+    return ClassDescriptorsExternalizer.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @Override
+  public int getVersion() {
+    return 3;
+  }
+
+  @NotNull
+  private static Map<String, List<ClassDescriptor>> index(@NotNull FileContent content) {
+    if (!(content instanceof PsiDependentFileContent)) {
+      return emptyMap();
+    }
+    LighterAST tree = ((PsiDependentFileContent) content).getLighterAST();
+    LighterASTNode root = tree.getRoot();
+    FileImports imports = new FileImports(tree, root);
+    Map<String, List<ClassDescriptor>> result = new HashMap<>();
+    for (LighterASTNode clazz : LightTreeUtil.getChildrenOfType(tree, root, JavaElementType.CLASS)) {
+      index(tree, clazz, imports.packageName, imports, result);
+    }
+    return result;
+  }
+
+  private static void index(@NotNull LighterAST tree, @NotNull LighterASTNode clazz, @NotNull String prefix,
+                            @NotNull FileImports imports, @NotNull Map<String, List<ClassDescriptor>> result) {
+    String name = JavaLightTreeUtil.getNameIdentifierText(tree, clazz);
+    if (name == null) {
+      return;
+    }
+    String qualifiedName = prefix.isEmpty() ? name : prefix + "." + name;
+    LighterASTNode modifierList = LightTreeUtil.firstChildOfType(tree, clazz, JavaElementType.MODIFIER_LIST);
+    if (modifierList != null) {
+      ClassDescriptor descriptor = null;
+      for (LighterASTNode annotation : LightTreeUtil.getChildrenOfType(tree, modifierList, JavaElementType.ANNOTATION)) {
+        LighterASTNode reference = LightTreeUtil.firstChildOfType(tree, annotation, JavaElementType.JAVA_CODE_REFERENCE);
+        if (reference != null) {
+          if (descriptor == null) {
+            descriptor = descriptor(tree, clazz, qualifiedName);
+          }
+          for (String key : imports.candidates(text(tree, reference))) {
+            result.computeIfAbsent(key, k -> new ArrayList<>()).add(descriptor);
+          }
+        }
+      }
+    }
+    for (LighterASTNode inner : LightTreeUtil.getChildrenOfType(tree, clazz, JavaElementType.CLASS)) {
+      index(tree, inner, qualifiedName, imports, result);
+    }
+  }
+
+  /**
+   * Same checks as {@link AlreadyDefined}, on the light AST.
+   */
+  @NotNull
+  private static ClassDescriptor descriptor(@NotNull LighterAST tree, @NotNull LighterASTNode clazz, @NotNull String qualifiedName) {
+    LighterASTNode typeParameters = LightTreeUtil.firstChildOfType(tree, clazz, JavaElementType.TYPE_PARAMETER_LIST);
+    int arity = typeParameters != null ? LightTreeUtil.getChildrenOfType(tree, typeParameters, JavaElementType.TYPE_PARAMETER).size() : 0;
+    boolean higherKindDefined = extendsHigher(tree, LightTreeUtil.firstChildOfType(tree, clazz, JavaElementType.EXTENDS_LIST))
+        || extendsHigher(tree, LightTreeUtil.firstChildOfType(tree, clazz, JavaElementType.IMPLEMENTS_LIST));
+    boolean instanceDefined = false;
+    for (LighterASTNode field : LightTreeUtil.getChildrenOfType(tree, clazz, JavaElementType.FIELD)) {
+      if (AlreadyDefined.INSTANCE_FIELD.equals(JavaLightTreeUtil.getNameIdentifierText(tree, field))) {
+        instanceDefined = true;
+        break;
+      }
+    }
+    return new ClassDescriptor(qualifiedName, arity, higherKindDefined, instanceDefined);
+  }
+
+  private static boolean extendsHigher(@NotNull LighterAST tree, @Nullable LighterASTNode list) {
+    if (list != null) {
+      for (LighterASTNode reference : LightTreeUtil.getChildrenOfType(tree, list, JavaElementType.JAVA_CODE_REFERENCE)) {
+        String name = referenceName(tree, reference);
+        if (AlreadyDefined.isHigherName(name)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  private static String referenceName(@NotNull LighterAST tree, @NotNull LighterASTNode reference) {
+    LighterASTNode identifier = LightTreeUtil.firstChildOfType(tree, reference, JavaTokenType.IDENTIFIER);
+    return identifier != null ? LightTreeUtil.toFilteredString(tree, identifier, null) : null;
+  }
+
+  @NotNull
+  private static String text(@NotNull LighterAST tree, @NotNull LighterASTNode node) {
+    return LightTreeUtil.toFilteredString(tree, node, ElementType.JAVA_COMMENT_OR_WHITESPACE_BIT_SET);
+  }
+
+  private static final class FileImports {
+
+    private final String packageName;
+    private final Map<String, String> byShortName = new HashMap<>();
+    private final List<String> onDemand = new ArrayList<>();
+
+    private FileImports(@NotNull LighterAST tree, @NotNull LighterASTNode root) {
+      LighterASTNode packageStatement = LightTreeUtil.firstChildOfType(tree, root, JavaElementType.PACKAGE_STATEMENT);
+      LighterASTNode packageReference = packageStatement != null
+          ? LightTreeUtil.firstChildOfType(tree, packageStatement, JavaElementType.JAVA_CODE_REFERENCE) : null;
+      this.packageName = packageReference != null ? text(tree, packageReference) : "";
+      LighterASTNode importList = LightTreeUtil.firstChildOfType(tree, root, JavaElementType.IMPORT_LIST);
+      if (importList != null) {
+        for (LighterASTNode statement : LightTreeUtil.getChildrenOfType(tree, importList, JavaElementType.IMPORT_STATEMENT)) {
+          LighterASTNode reference = LightTreeUtil.firstChildOfType(tree, statement, JavaElementType.JAVA_CODE_REFERENCE);
+          if (reference == null) {
+            continue;
+          }
+          String name = text(tree, reference);
+          if (LightTreeUtil.firstChildOfType(tree, statement, JavaTokenType.ASTERISK) != null) {
+            onDemand.add(name);
+          } else {
+            byShortName.put(name.substring(name.lastIndexOf('.') + 1), name);
+          }
+        }
+      }
+    }
+
+    /**
+     * Qualified names an annotation reference may resolve to, the same rules as
+     * {@code PurefunAnnotations.isImported}.
+     */
+    @NotNull
+    Set<String> candidates(@NotNull String reference) {
+      if (reference.indexOf('.') >= 0) {
+        return singleton(reference);
+      }
+      String imported = byShortName.get(reference);
+      if (imported != null) {
+        return singleton(imported);
+      }
+      Set<String> result = new LinkedHashSet<>();
+      result.add(packageName.isEmpty() ? reference : packageName + "." + reference);
+      for (String name : onDemand) {
+        result.add(name + "." + reference);
+      }
+      return result;
+    }
+  }
+}
+
+final class ClassDescriptorsExternalizer implements DataExternalizer<List<ClassDescriptor>> {
+
+  static final ClassDescriptorsExternalizer INSTANCE = new ClassDescriptorsExternalizer();
+
+  private static final int HIGHER_KIND_DEFINED = 1;
+  private static final int INSTANCE_DEFINED = 2;
+
+  @Override
+  public void save(@NotNull DataOutput out, List<ClassDescriptor> value) throws IOException {
+    DataInputOutputUtil.writeSeq(out, value, descriptor -> {
+      IOUtil.writeUTF(out, descriptor.getQualifiedName());
+      DataInputOutputUtil.writeINT(out, descriptor.getArity());
+      out.writeByte((descriptor.isHigherKindDefined() ? HIGHER_KIND_DEFINED : 0)
+          | (descriptor.isInstanceDefined() ? INSTANCE_DEFINED : 0));
+    });
+  }
+
+  @Override
+  public List<ClassDescriptor> read(@NotNull DataInput in) throws IOException {
+    return DataInputOutputUtil.readSeq(in, () -> {
+      String qualifiedName = IOUtil.readUTF(in);
+      int arity = DataInputOutputUtil.readINT(in);
+      byte flags = in.readByte();
+      return new ClassDescriptor(qualifiedName, arity,
+          (flags & HIGHER_KIND_DEFINED) != 0, (flags & INSTANCE_DEFINED) != 0);
+    });
+  }
+}
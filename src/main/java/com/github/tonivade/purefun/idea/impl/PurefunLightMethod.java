@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiModifierList;
+import com.intellij.psi.PsiParameterList;
+import com.intellij.psi.PsiReferenceList;
+import com.intellij.psi.PsiTypeParameterList;
+import com.intellij.psi.impl.light.LightMethodBuilder;
+import com.intellij.psi.search.SearchScope;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Light method generated by purefun, created by {@link PurefunLightMethodFactory}.
+ */
+public final class PurefunLightMethod extends LightMethodBuilder {
+
+  PurefunLightMethod(PsiManager manager, String name, PsiClass containingClass,
+                     PsiParameterList parameterList, PsiModifierList modifierList,
+                     PsiReferenceList throwsList, PsiTypeParameterList typeParameterList) {
+    super(manager, JavaLanguage.INSTANCE, name, parameterList, modifierList, throwsList, typeParameterList);
+    setContainingClass(containingClass);
+  }
+
+  @NotNull
+  @Override
+  public SearchScope getUseScope() {
+    PsiClass containingClass = getContainingClass();
+    return containingClass != null ? containingClass.getUseScope() : super.getUseScope();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassType;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiModifierList;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiParameterList;
+import com.intellij.psi.PsiReferenceList;
+import com.intellij.psi.PsiTypeParameter;
+import com.intellij.psi.PsiTypeParameterList;
+import com.intellij.psi.impl.light.LightModifierList;
+import com.intellij.psi.impl.light.LightParameterListBuilder;
+import com.intellij.psi.impl.light.LightReferenceListBuilder;
+import com.intellij.psi.impl.light.LightTypeParameterListBuilder;
+import com.intellij.util.IncorrectOperationException;
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates the purefun light methods of a project. Modifier lists, the empty throws list and, for methods
+ * without parameters or type parameters, the empty lists are shared by all of them, so they cannot be
+ * modified.
+ */
+public class PurefunLightMethodFactory {
+
+  private final PsiManager manager;
+  private final boolean shared;
+  private final PsiModifierList publicModifiers;
+  private final PsiModifierList publicStaticModifiers;
+  private final PsiReferenceList throwsList;
+  private final PsiParameterList noParameters;
+  private final PsiTypeParameterList noTypeParameters;
+
+  public PurefunLightMethodFactory(Project project) {
+    this(PsiManager.getInstance(project), true);
+  }
+
+  /**
+   * Without sharing every method gets its own lists, as plain light method builders do. Only used to
+   * measure what the sharing saves.
+   */
+  PurefunLightMethodFactory(PsiManager manager, boolean shared) {
+    this.manager = requireNonNull(manager);
+    this.shared = shared;
+    this.publicModifiers = new SharedModifierList(manager, PsiModifier.PUBLIC);
+    this.publicStaticModifiers = new SharedModifierList(manager, PsiModifier.PUBLIC, PsiModifier.STATIC);
+    this.throwsList = new SharedThrowsList(manager);
+    this.noParameters = new SharedParameterList(manager);
+    this.noTypeParameters = new SharedTypeParameterList(manager);
+  }
+
+  static PurefunLightMethodFactory getInstance(Project project) {
+    return ServiceManager.getService(project, PurefunLightMethodFactory.class);
+  }
+
+  @NotNull
+  PurefunLightMethod instanceMethod(@NotNull PsiClass clazz, @NotNull String name) {
+    if (!shared) {
+      return new PurefunLightMethod(manager, name, clazz, new LightParameterListBuilder(manager, JavaLanguage.INSTANCE),
+          new LightModifierList(manager, JavaLanguage.INSTANCE, PsiModifier.PUBLIC), newThrowsList(),
+          new LightTypeParameterListBuilder(manager, JavaLanguage.INSTANCE));
+    }
+    return new PurefunLightMethod(manager, name, clazz, noParameters, publicModifiers, throwsList, noTypeParameters);
+  }
+
+  @NotNull
+  PurefunLightMethod staticMethod(@NotNull PsiClass clazz, @NotNull String name, boolean withParameters) {
+    return new PurefunLightMethod(manager, name, clazz,
+        withParameters || !shared ? new LightParameterListBuilder(manager, JavaLanguage.INSTANCE) : noParameters,
+        shared ? publicStaticModifiers : new LightModifierList(manager, JavaLanguage.INSTANCE, PsiModifier.PUBLIC, PsiModifier.STATIC),
+        shared ? throwsList : newThrowsList(), new LightTypeParameterListBuilder(manager, JavaLanguage.INSTANCE));
+  }
+
+  @NotNull
+  private PsiReferenceList newThrowsList() {
+    return new LightReferenceListBuilder(manager, JavaLanguage.INSTANCE, PsiReferenceList.Role.THROWS_LIST);
+  }
+}
+
+final class SharedModifierList extends LightModifierList {
+
+  SharedModifierList(PsiManager manager, String... modifiers) {
+    super(manager, JavaLanguage.INSTANCE, modifiers);
+  }
+
+  @Override
+  public void addModifier(String modifier) {
+    throw new IncorrectOperationException("shared modifier list");
+  }
+
+  @Override
+  public void copyModifiers(PsiModifierList modifierList) {
+    throw new IncorrectOperationException("shared modifier list");
+  }
+
+  @Override
+  public void clearModifiers() {
+    throw new IncorrectOperationException("shared modifier list");
+  }
+}
+
+final class SharedThrowsList extends LightReferenceListBuilder {
+
+  SharedThrowsList(PsiManager manager) {
+    super(manager, JavaLanguage.INSTANCE, Role.THROWS_LIST);
+  }
+
+  @Override
+  public void addReference(PsiClass aClass) {
+    throw new IncorrectOperationException("shared throws list");
+  }
+
+  @Override
+  public void addReference(String qualifiedName) {
+    throw new IncorrectOperationException("shared throws list");
+  }
+
+  @Override
+  public void addReference(PsiClassType type) {
+    throw new IncorrectOperationException("shared throws list");
+  }
+}
+
+final class SharedParameterList extends LightParameterListBuilder {
+
+  SharedParameterList(PsiManager manager) {
+    super(manager, JavaLanguage.INSTANCE);
+  }
+
+  @Override
+  public void addParameter(PsiParameter parameter) {
+    throw new IncorrectOperationException("shared parameter list");
+  }
+}
+
+final class SharedTypeParameterList extends LightTypeParameterListBuilder {
+
+  SharedTypeParameterList(PsiManager manager) {
+    super(manager, JavaLanguage.INSTANCE);
+  }
+
+  @Override
+  public void addParameter(PsiTypeParameter parameter) {
+    throw new IncorrectOperationException("shared type parameter list");
+  }
+}
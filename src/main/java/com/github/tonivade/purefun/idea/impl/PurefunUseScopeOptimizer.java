@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiSearchHelper;
+import com.intellij.psi.search.ScopeOptimizer;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.UsageSearchContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Restricts the use scope of the generated static narrowK/kindN methods to the files that contain both
+ * the method name and the owner's short name, so every references searcher scans only those. An
+ * unqualified call still names the owner in its file when the owner cannot be subclassed: the call is
+ * inside the owner or goes through a static import.
+ */
+public class PurefunUseScopeOptimizer implements ScopeOptimizer {
+
+  @Nullable
+  @Override
+  public SearchScope getRestrictedUseScope(@NotNull PsiElement element) {
+    if (!(element instanceof PurefunLightMethod)) {
+      return null;
+    }
+    PurefunLightMethod method = (PurefunLightMethod) element;
+    PsiClass clazz = method.getContainingClass();
+    Project project = method.getProject();
+    if (clazz == null || clazz.getName() == null || !method.hasModifierProperty(PsiModifier.STATIC)
+        || !isFinal(clazz) || DumbService.isDumb(project)) {
+      return null;
+    }
+    GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+    PsiSearchHelper helper = PsiSearchHelper.getInstance(project);
+    Set<VirtualFile> byName = new HashSet<>();
+    helper.processCandidateFilesForText(scope, UsageSearchContext.IN_CODE, true, method.getName(), byName::add);
+    Set<VirtualFile> result = new LinkedHashSet<>();
+    if (!byName.isEmpty()) {
+      helper.processCandidateFilesForText(scope, UsageSearchContext.IN_CODE, true, clazz.getName(), file -> {
+        if (byName.contains(file)) {
+          result.add(file);
+        }
+        return true;
+      });
+    }
+    return GlobalSearchScope.filesScope(project, result);
+  }
+
+  /**
+   * Static methods of interfaces are not inherited, and final classes have no subclass calling them
+   * unqualified from another file.
+   */
+  private static boolean isFinal(@NotNull PsiClass clazz) {
+    return clazz.isInterface() || clazz.isEnum() || clazz.hasModifierProperty(PsiModifier.FINAL);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.materialize;
+
+import com.github.tonivade.purefun.idea.AnnotationIndexService;
+import com.github.tonivade.purefun.idea.PurefunAnnotations;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the generated members of every annotated class of the project into its source, in batches of
+ * write commands so the IDE stays responsive and the work can be cancelled between batches.
+ */
+public class MaterializeAugmentsAction extends AnAction {
+
+  static final String COMMAND_NAME = "Materialize Purefun Augments";
+
+  @Override
+  public void update(@NotNull AnActionEvent event) {
+    Project project = event.getProject();
+    event.getPresentation().setEnabled(project != null && !DumbService.isDumb(project));
+  }
+
+  @Override
+  public void actionPerformed(@NotNull AnActionEvent event) {
+    Project project = event.getProject();
+    if (project == null) {
+      return;
+    }
+    int answer = Messages.showYesNoDialog(project,
+        "Write the generated µ witnesses, Higher supertypes, narrowK/kind and instance members into the sources?",
+        COMMAND_NAME, Messages.getQuestionIcon());
+    if (answer == Messages.YES) {
+      ProgressManager.getInstance().run(new MaterializeTask(project));
+    }
+  }
+}
+
+class MaterializeTask extends Task.Backgroundable {
+
+  private static final int BATCH_SIZE = 50;
+
+  MaterializeTask(Project project) {
+    super(project, MaterializeAugmentsAction.COMMAND_NAME, true);
+  }
+
+  @Override
+  public void run(@NotNull ProgressIndicator indicator) {
+    Project project = getProject();
+    DumbService dumbService = DumbService.getInstance(project);
+    List<String> classNames = dumbService.runReadActionInSmartMode(() -> annotatedClasses(project));
+    indicator.setIndeterminate(false);
+    for (int from = 0; from < classNames.size(); from += BATCH_SIZE) {
+      indicator.checkCanceled();
+      indicator.setFraction((double) from / classNames.size());
+      indicator.setText2(from + " / " + classNames.size());
+      List<String> batch = classNames.subList(from, Math.min(from + BATCH_SIZE, classNames.size()));
+      List<MaterializePlan> plans = dumbService.runReadActionInSmartMode(() -> plan(project, batch));
+      if (!plans.isEmpty()) {
+        ApplicationManager.getApplication().invokeAndWait(
+            () -> WriteCommandAction.writeCommandAction(project).withName(MaterializeAugmentsAction.COMMAND_NAME)
+                .run(() -> plans.forEach(MaterializePlan::apply)));
+      }
+    }
+  }
+
+  @NotNull
+  private static List<String> annotatedClasses(@NotNull Project project) {
+    AnnotationIndexService indexService = AnnotationIndexService.getInstance(project);
+    Set<String> result = new LinkedHashSet<>();
+    for (String annotation : PurefunAnnotations.registered()) {
+      result.addAll(indexService.getAnnotatedClasses(annotation));
+    }
+    return new ArrayList<>(result);
+  }
+
+  @NotNull
+  private static List<MaterializePlan> plan(@NotNull Project project, @NotNull List<String> classNames) {
+    JavaPsiFacade facade = JavaPsiFacade.getInstance(project);
+    GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+    List<MaterializePlan> plans = new ArrayList<>();
+    for (String className : classNames) {
+      for (PsiClass clazz : facade.findClasses(className, scope)) {
+        MaterializePlan plan = MaterializePlan.of(clazz);
+        if (plan != null) {
+          plans.add(plan);
+        }
+      }
+    }
+    return plans;
+  }
+}
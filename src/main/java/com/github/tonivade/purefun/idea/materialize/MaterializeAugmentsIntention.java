@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.materialize;
+
+import com.github.tonivade.purefun.idea.PurefunProvider;
+import com.intellij.codeInsight.intention.PsiElementBaseIntentionAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiIdentifier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes the generated members of the class under the caret into its source.
+ */
+public class MaterializeAugmentsIntention extends PsiElementBaseIntentionAction {
+
+  @NotNull
+  @Override
+  public String getFamilyName() {
+    return "Materialize purefun augments";
+  }
+
+  @NotNull
+  @Override
+  public String getText() {
+    return getFamilyName();
+  }
+
+  @Override
+  public boolean isAvailable(@NotNull Project project, Editor editor, @NotNull PsiElement element) {
+    PsiClass clazz = classOf(element);
+    return clazz != null && clazz.getManager().isInProject(clazz) && !PurefunProvider.getAugments(clazz).isEmpty();
+  }
+
+  @Override
+  public void invoke(@NotNull Project project, Editor editor, @NotNull PsiElement element) {
+    PsiClass clazz = classOf(element);
+    if (clazz != null) {
+      MaterializePlan plan = MaterializePlan.of(clazz);
+      if (plan != null) {
+        plan.apply();
+      }
+    }
+  }
+
+  @Nullable
+  private static PsiClass classOf(@NotNull PsiElement element) {
+    if (element instanceof PsiIdentifier && element.getParent() instanceof PsiClass) {
+      PsiClass clazz = (PsiClass) element.getParent();
+      return element.equals(clazz.getNameIdentifier()) ? clazz : null;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.materialize;
+
+import com.github.tonivade.purefun.idea.AlreadyDefined;
+import com.github.tonivade.purefun.idea.PurefunAugments;
+import com.github.tonivade.purefun.idea.PurefunProvider;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementFactory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiReferenceList;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.PsiTypeParameter;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.codeStyle.JavaCodeStyleManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Source text of the members purefun generates for one class, taken from its light augments in a read
+ * action and written into the class later in a write action. Once written, the already defined checks
+ * make the provider skip the class.
+ */
+final class MaterializePlan {
+
+  private static final String WITNESS = "µ";
+  private static final String KIND = "com.github.tonivade.purefun.Kind";
+  private static final String NARROW_KIND = "narrowK";
+  private static final String KIND_METHOD = "kind";
+  private static final String INSTANCE_METHOD = "instance";
+
+  private final SmartPsiElementPointer<PsiClass> pointer;
+  private final String supertype;
+  private final String witness;
+  private final String instanceField;
+  private final List<String> methods;
+
+  private MaterializePlan(SmartPsiElementPointer<PsiClass> pointer, @Nullable String supertype,
+                          @Nullable String witness, @Nullable String instanceField, List<String> methods) {
+    this.pointer = requireNonNull(pointer);
+    this.supertype = supertype;
+    this.witness = witness;
+    this.instanceField = instanceField;
+    this.methods = requireNonNull(methods);
+  }
+
+  /**
+   * Returns null when the class has nothing generated or cannot be written.
+   */
+  @Nullable
+  static MaterializePlan of(@NotNull PsiClass clazz) {
+    PsiFile file = clazz.getContainingFile();
+    if (file == null || !file.isWritable() || !clazz.getManager().isInProject(clazz) || clazz.getName() == null) {
+      return null;
+    }
+    PurefunAugments augments = PurefunProvider.getAugments(clazz);
+    if (augments.isEmpty()) {
+      return null;
+    }
+    String witness = null;
+    for (PsiClass generated : augments.getClasses()) {
+      if (WITNESS.equals(generated.getName())) {
+        witness = "public static final class " + WITNESS + " implements " + KIND + " {}";
+      }
+    }
+    String supertype = null;
+    String instanceField = null;
+    List<String> methods = new ArrayList<>();
+    for (PsiMethod method : augments.getMethods()) {
+      String name = method.getName();
+      if (NARROW_KIND.equals(name)) {
+        methods.add(renderNarrowK(method));
+      } else if (INSTANCE_METHOD.equals(name)) {
+        methods.add(renderInstance(method));
+        instanceField = renderInstanceField(clazz);
+      } else if (name.startsWith(KIND_METHOD)) {
+        if (supertype == null) {
+          supertype = returnType(method);
+        }
+        methods.add(renderKind(clazz, method));
+      }
+    }
+    SmartPsiElementPointer<PsiClass> pointer = SmartPointerManager.getInstance(clazz.getProject()).createSmartPsiElementPointer(clazz);
+    return new MaterializePlan(pointer, supertype, witness, instanceField, methods);
+  }
+
+  /**
+   * Writes the members into the class, must run inside a write command.
+   */
+  void apply() {
+    PsiClass clazz = pointer.getElement();
+    if (clazz == null || !clazz.isValid()) {
+      return;
+    }
+    Project project = clazz.getProject();
+    PsiElementFactory factory = JavaPsiFacade.getElementFactory(project);
+    List<PsiElement> added = new ArrayList<>();
+    if (supertype != null && !AlreadyDefined.higherKind(clazz)) {
+      PsiReferenceList list = clazz.isInterface() ? clazz.getExtendsList() : clazz.getImplementsList();
+      if (list != null) {
+        added.add(list.add(factory.createReferenceFromText(supertype, clazz)));
+      }
+    }
+    if (witness != null && clazz.findInnerClassByName(WITNESS, false) == null) {
+      added.add(clazz.add(factory.createClassFromText(witness, clazz).getInnerClasses()[0]));
+    }
+    if (instanceField != null && !AlreadyDefined.instance(clazz)) {
+      added.add(clazz.add(factory.createFieldFromText(instanceField, clazz)));
+    }
+    for (String method : methods) {
+      added.add(clazz.add(factory.createMethodFromText(method, clazz)));
+    }
+    JavaCodeStyleManager styleManager = JavaCodeStyleManager.getInstance(project);
+    for (PsiElement element : added) {
+      styleManager.shortenClassReferences(element);
+    }
+  }
+
+  @NotNull
+  private static String renderNarrowK(@NotNull PsiMethod method) {
+    String returnType = returnType(method);
+    PsiParameter parameter = method.getParameterList().getParameters()[0];
+    return "@SuppressWarnings(\"unchecked\") public static " + typeParameters(method) + returnType + " "
+        + method.getName() + "(" + parameter.getType().getCanonicalText() + " " + parameter.getName() + ") {"
+        + " return (" + returnType + ") " + parameter.getName() + "; }";
+  }
+
+  @NotNull
+  private static String renderKind(@NotNull PsiClass clazz, @NotNull PsiMethod method) {
+    return (clazz.isInterface() ? "default " : "public ") + returnType(method) + " " + method.getName() + "() {"
+        + " return this; }";
+  }
+
+  @NotNull
+  private static String renderInstance(@NotNull PsiMethod method) {
+    String returnType = returnType(method);
+    return "@SuppressWarnings(\"unchecked\") public static " + typeParameters(method) + returnType + " "
+        + method.getName() + "() { return (" + returnType + ") " + AlreadyDefined.INSTANCE_FIELD + "; }";
+  }
+
+  @NotNull
+  private static String renderInstanceField(@NotNull PsiClass clazz) {
+    String name = clazz.getName();
+    boolean anonymous = clazz.isInterface() || clazz.hasModifierProperty(PsiModifier.ABSTRACT);
+    return (clazz.hasTypeParameters() ? "@SuppressWarnings(\"rawtypes\") " : "")
+        + (clazz.isInterface() ? "" : "public static final ") + name + " " + AlreadyDefined.INSTANCE_FIELD
+        + " = new " + name + "()" + (anonymous ? " {}" : "") + ";";
+  }
+
+  @NotNull
+  private static String typeParameters(@NotNull PsiMethod method) {
+    PsiTypeParameter[] typeParameters = method.getTypeParameters();
+    if (typeParameters.length == 0) {
+      return "";
+    }
+    StringBuilder text = new StringBuilder("<");
+    for (int i = 0; i < typeParameters.length; i++) {
+      text.append(i > 0 ? ", " : "").append(typeParameters[i].getName());
+    }
+    return text.append("> ").toString();
+  }
+
+  @NotNull
+  private static String returnType(@NotNull PsiMethod method) {
+    PsiType returnType = method.getReturnType();
+    return returnType != null ? returnType.getCanonicalText() : PsiType.VOID.getCanonicalText();
+  }
+}
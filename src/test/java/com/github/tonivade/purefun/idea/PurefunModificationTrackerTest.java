@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+
+public class PurefunModificationTrackerTest extends PurefunTestCase {
+
+  public void testTypingInMethodBodyDoesNotBump() {
+    addClass("Foo", higherKind("Foo", 1));
+    PsiFile file = myFixture.addFileToProject("test/Other.java",
+        "package test;\nclass Other {\n  void run() {\n    \n  }\n}\n");
+    myFixture.configureFromExistingVirtualFile(file.getVirtualFile());
+    myFixture.getEditor().getCaretModel().moveToOffset(file.getText().indexOf("    \n") + 4);
+    PurefunModificationTracker tracker = PurefunModificationTracker.getInstance(getProject());
+    long before = tracker.getModificationCount();
+
+    myFixture.type("int x = 1;");
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+
+    assertEquals(before, tracker.getModificationCount());
+  }
+
+  public void testAddingAnnotationBumps() {
+    PsiFile file = myFixture.addFileToProject("test/Foo.java", "package test;\npublic interface Foo<A> {}\n");
+    PurefunModificationTracker tracker = PurefunModificationTracker.getInstance(getProject());
+    long before = tracker.getModificationCount();
+
+    replaceText(file, higherKindSource());
+
+    assertTrue(tracker.getModificationCount() > before);
+  }
+
+  public void testReloadRemovingAnnotationBumps() {
+    PsiFile file = myFixture.addFileToProject("test/Foo.java", higherKindSource());
+    PurefunModificationTracker tracker = PurefunModificationTracker.getInstance(getProject());
+    long before = tracker.getModificationCount();
+
+    replaceText(file, "package test;\npublic interface Foo<A> {}\n");
+
+    assertTrue(tracker.getModificationCount() > before);
+  }
+
+  private void replaceText(PsiFile file, String text) {
+    PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+    Document document = documentManager.getDocument(file);
+    assertNotNull(document);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> document.setText(text));
+    documentManager.commitAllDocuments();
+  }
+
+  private static String higherKindSource() {
+    return "package test;\n" + higherKind("Foo", 1);
+  }
+}
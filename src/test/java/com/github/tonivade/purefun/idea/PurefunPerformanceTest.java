@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.roots.ex.ProjectRootManagerEx;
+import com.intellij.openapi.util.EmptyRunnable;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.augment.PsiAugmentProvider;
+import com.intellij.testFramework.PlatformTestUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Augments a synthetic project, 2% {@code @HigherKind} at arities 1 to 3 and 1% {@code @Instance}, cold
+ * and then warm, growing it to each size of {@code -Dpurefun.performance.sizes} (1000, 10000 and 50000
+ * by default). Expected timings come from {@code testData/performance/baseline.properties}. Each run
+ * also reports the latency percentiles and the allocated bytes of a single class augmentation.
+ */
+public class PurefunPerformanceTest extends PurefunTestCase {
+
+  private static final String SIZES = System.getProperty("purefun.performance.sizes", "1000,10000,50000");
+  private static final int HIGHER_KIND_PERCENT = 2;
+  private static final int INSTANCE_PERCENT = 1;
+
+  private final Random random = new Random(1000);
+  private final List<PsiClass> classes = new ArrayList<>();
+
+  @Override
+  protected void tearDown() throws Exception {
+    classes.clear();
+    super.tearDown();
+  }
+
+  public void testColdAugmentation() throws IOException {
+    for (int size : sizes()) {
+      grow(size);
+      PlatformTestUtil.startPerformanceTest("purefun cold augmentation of " + size + " classes", expected("cold", size),
+          () -> classes.forEach(PurefunPerformanceTest::augment))
+          .setup(this::dropCaches)
+          .assertTiming();
+
+      dropCaches();
+      report("cold", size, measure());
+    }
+  }
+
+  public void testWarmAugmentation() throws IOException {
+    for (int size : sizes()) {
+      grow(size);
+      classes.forEach(PurefunPerformanceTest::augment);
+      PlatformTestUtil.startPerformanceTest("purefun warm augmentation of " + size + " classes", expected("warm", size),
+          () -> classes.forEach(PurefunPerformanceTest::augment))
+          .assertTiming();
+
+      report("warm", size, measure());
+    }
+  }
+
+  private static void augment(PsiClass clazz) {
+    PsiAugmentProvider.collectAugments(clazz, PsiClass.class);
+    PsiAugmentProvider.collectAugments(clazz, PsiMethod.class);
+  }
+
+  /**
+   * Removes what purefun keeps on the classes and files, and changes the roots, which every other value
+   * depends on: the witness types, the Kind and Higher symbols and the annotated classes.
+   */
+  private void dropCaches() {
+    WriteAction.run(() -> ProjectRootManagerEx.getInstanceEx(getProject())
+        .makeRootsChange(EmptyRunnable.getInstance(), false, true));
+    for (PsiClass clazz : classes) {
+      clazz.putUserData(AugmentsCachedValue.KEY, null);
+      clazz.putUserData(SignatureTracker.TRACKER, null);
+      clazz.getContainingFile().putUserData(PurefunAnnotations.IMPORTS, null);
+    }
+  }
+
+  /**
+   * Augments every class once, timing and counting the allocations of each call.
+   */
+  private Measure measure() {
+    long[] nanos = new long[classes.size()];
+    long allocated = 0;
+    for (int i = 0; i < nanos.length; i++) {
+      PsiClass clazz = classes.get(i);
+      long bytes = allocatedBytes();
+      long start = System.nanoTime();
+      augment(clazz);
+      nanos[i] = System.nanoTime() - start;
+      allocated += allocatedBytes() - bytes;
+    }
+    Arrays.sort(nanos);
+    return new Measure(nanos, allocated / nanos.length);
+  }
+
+  private static void report(String pass, int size, Measure measure) {
+    System.out.println("purefun " + pass + " augmentation of " + size + " classes, nanos per call:"
+        + " p50=" + measure.percentile(50) + " p90=" + measure.percentile(90) + " p99=" + measure.percentile(99)
+        + " max=" + measure.percentile(100) + ", bytes allocated per call: " + measure.allocatedPerCall);
+  }
+
+  private void grow(int size) {
+    for (int i = classes.size(); i < size; i++) {
+      String name = "Synthetic" + i;
+      int percent = random.nextInt(100);
+      if (percent < HIGHER_KIND_PERCENT) {
+        classes.add(addClass(name, higherKind(name, 1 + random.nextInt(3))));
+      } else if (percent < HIGHER_KIND_PERCENT + INSTANCE_PERCENT) {
+        classes.add(addClass(name, instance(name)));
+      } else {
+        classes.add(addClass(name, "import java.util.List;\npublic class " + name + " {\n  @Deprecated List<String> field;\n}\n"));
+      }
+    }
+  }
+
+  private static int[] sizes() {
+    return Arrays.stream(SIZES.split(",")).map(String::trim).mapToInt(Integer::parseInt).sorted().toArray();
+  }
+
+  private int expected(String pass, int size) throws IOException {
+    Properties baseline = new Properties();
+    try (InputStream input = Files.newInputStream(Paths.get(getTestDataPath(), "performance", "baseline.properties"))) {
+      baseline.load(input);
+    }
+    return Math.max(1, Integer.parseInt(baseline.getProperty(pass)) * size / 1000);
+  }
+
+  private static final class Measure {
+
+    private final long[] sortedNanos;
+    private final long allocatedPerCall;
+
+    private Measure(long[] sortedNanos, long allocatedPerCall) {
+      this.sortedNanos = sortedNanos;
+      this.allocatedPerCall = allocatedPerCall;
+    }
+
+    private long percentile(int percent) {
+      int index = (int) Math.ceil(percent / 100.0 * sortedNanos.length) - 1;
+      return sortedNanos[Math.max(0, Math.min(sortedNanos.length - 1, index))];
+    }
+  }
+}
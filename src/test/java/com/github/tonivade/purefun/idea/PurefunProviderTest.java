@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementFactory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiShortNamesCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+public class PurefunProviderTest extends PurefunTestCase {
+
+  private static final int WARM_UP_CALLS = 10_000;
+  private static final int MEASURED_CALLS = 100_000;
+  private static final int STRESS_CLASSES = 50;
+
+  public void testHigherKindFoundThroughIndex() {
+    PsiClass clazz = addClass("Foo", higherKind("Foo", 1));
+
+    assertTrue(AnnotationIndexService.getInstance(getProject())
+        .getAnnotatedClasses(PurefunAnnotations.HIGHER_KIND).contains("test.Foo"));
+    PurefunAugments augments = PurefunProvider.getAugments(clazz);
+    assertEquals(singletonList("µ"), classNames(augments.getClasses()));
+    assertEquals(asList("narrowK", "kind1"), methodNames(augments.getMethods()));
+  }
+
+  public void testHigherKindArityThree() {
+    PsiClass clazz = addClass("Foo", higherKind("Foo", 3));
+
+    assertEquals(asList("narrowK", "narrowK", "narrowK", "kind3", "kind2", "kind1"),
+        methodNames(PurefunProvider.getAugments(clazz).getMethods()));
+  }
+
+  public void testInstance() {
+    PsiClass clazz = addClass("FooInstances", instance("FooInstances"));
+
+    assertEquals(singletonList("instance"), methodNames(PurefunProvider.getAugments(clazz).getMethods()));
+  }
+
+  public void testNotAnnotated() {
+    PsiClass clazz = addClass("Foo", "public interface Foo<A> {}\n");
+
+    assertSame(PurefunAugments.EMPTY, PurefunProvider.getAugments(clazz));
+  }
+
+  public void testImportAddedAfterAnnotation() {
+    PsiClass clazz = addClass("Foo", "@HigherKind\npublic interface Foo<A> {}\n");
+    assertTrue(PurefunProvider.getAugments(clazz).isEmpty());
+
+    PsiClass annotation = JavaPsiFacade.getInstance(getProject())
+        .findClass(PurefunAnnotations.HIGHER_KIND, GlobalSearchScope.allScope(getProject()));
+    assertNotNull(annotation);
+    PsiJavaFile file = (PsiJavaFile) clazz.getContainingFile();
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> file.getImportList()
+        .add(PsiElementFactory.getInstance(getProject()).createImportStatement(annotation)));
+
+    assertEquals(asList("narrowK", "kind1"), methodNames(PurefunProvider.getAugments(clazz).getMethods()));
+  }
+
+  public void testRenameUpdatesAnnotatedClasses() {
+    PsiClass clazz = addClass("Foo", higherKind("Foo", 1));
+    AnnotationIndexService indexService = AnnotationIndexService.getInstance(getProject());
+    assertTrue(indexService.getAnnotatedClasses(PurefunAnnotations.HIGHER_KIND).contains("test.Foo"));
+
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> { clazz.setName("Bar"); });
+
+    assertTrue(indexService.getAnnotatedClasses(PurefunAnnotations.HIGHER_KIND).contains("test.Bar"));
+    assertFalse(indexService.getAnnotatedClasses(PurefunAnnotations.HIGHER_KIND).contains("test.Foo"));
+    assertTrue(indexService.isAnnotated(clazz, PurefunAnnotations.HIGHER_KIND));
+  }
+
+  public void testWitnessFinderReturnsCachedWitness() {
+    PsiClass clazz = addClass("Foo", higherKind("Foo", 2));
+    PurefunMetrics metrics = PurefunMetrics.getInstance(getProject());
+    metrics.reset();
+
+    PsiClass witness = JavaPsiFacade.getInstance(getProject())
+        .findClass("test.Foo.µ", GlobalSearchScope.allScope(getProject()));
+
+    assertSame(PurefunProvider.getClasses(clazz).get(0), witness);
+    assertSame(witness, PurefunProvider.getAugments(clazz).getClasses().get(0));
+    assertEquals(Long.valueOf(1), metrics.snapshot().get("recompute.AugmentsCachedValue"));
+    assertNull(metrics.snapshot().get("recompute.PurefunAugments"));
+    assertEquals(Long.valueOf(1), metrics.snapshot().get(PurefunMetrics.HIGHER_KIND_CLASS + ".count"));
+    assertNull(metrics.snapshot().get(PurefunMetrics.HIGHER_KIND_METHOD + ".count"));
+  }
+
+  public void testGeneratedMembersResolve() {
+    addClass("Foo", higherKind("Foo", 1));
+    PsiFile usage = myFixture.addFileToProject("test/Usage.java", "package test;\n"
+        + "import com.github.tonivade.purefun.Higher1;\n"
+        + "class Usage {\n"
+        + "  Foo<String> narrow(Higher1<Foo.µ, String> hkt) { return Foo.narrowK(hkt); }\n"
+        + "  Higher1<Foo.µ, String> kind(Foo<String> foo) { return foo.kind1(); }\n"
+        + "}\n");
+    myFixture.configureFromExistingVirtualFile(usage.getVirtualFile());
+
+    myFixture.checkHighlighting();
+  }
+
+  public void testMethodsByNameAreTheResolvedOnes() {
+    PsiClass foo = addClass("Foo", higherKind("Foo", 1));
+    PsiClass bar = addClass("Bar", higherKind("Bar", 1));
+    PsiMethod fooByName = byName("narrowK", foo);
+    PsiFile usage = myFixture.addFileToProject("test/Usage.java", "package test;\n"
+        + "import com.github.tonivade.purefun.Higher1;\n"
+        + "class Usage {\n"
+        + "  Foo<String> foo(Higher1<Foo.µ, String> hkt) { return Foo.narrowK(hkt); }\n"
+        + "  Bar<String> bar(Higher1<Bar.µ, String> hkt) { return Bar.narrowK(hkt); }\n"
+        + "}\n");
+
+    PsiMethod fooResolved = resolve(usage, "Foo.narrowK(");
+    PsiMethod barResolved = resolve(usage, "Bar.narrowK(");
+
+    assertSame(fooResolved, fooByName);
+    assertTrue(getPsiManager().areElementsEquivalent(fooResolved, fooByName));
+    assertSame(barResolved, byName("narrowK", bar));
+    assertSame(fooResolved, PurefunProvider.getMethods(foo, "narrowK").get(0));
+  }
+
+  public void testCacheHitDoesNotAllocate() {
+    PsiClass clazz = addClass("Foo", higherKind("Foo", 2));
+    PurefunAugments expected = PurefunProvider.getAugments(clazz);
+    for (int i = 0; i < WARM_UP_CALLS; i++) {
+      PurefunProvider.getAugments(clazz);
+    }
+
+    long before = allocatedBytes();
+    for (int i = 0; i < MEASURED_CALLS; i++) {
+      assertSame(expected, PurefunProvider.getAugments(clazz));
+    }
+    long allocated = allocatedBytes() - before;
+
+    // any object created per call would take at least 16 bytes
+    assertTrue("allocated " + allocated + " bytes in " + MEASURED_CALLS + " calls", allocated / MEASURED_CALLS < 8);
+  }
+
+  public void testConcurrentCallsComputeOnce() throws Exception {
+    PurefunMetrics metrics = PurefunMetrics.getInstance(getProject());
+    PsiClass control = addClass("Control", higherKind("Control", 3));
+    long start = metrics.getRecomputations();
+    PurefunProvider.getAugments(control);
+    long perClass = metrics.getRecomputations() - start;
+    List<PsiClass> classes = new ArrayList<>();
+    for (int i = 0; i < STRESS_CLASSES; i++) {
+      classes.add(addClass("Hot" + i, higherKind("Hot" + i, 1 + i % 3)));
+    }
+
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    long before = metrics.getRecomputations();
+    try {
+      CountDownLatch ready = new CountDownLatch(1);
+      List<Future<List<PurefunAugments>>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          ready.await();
+          return ReadAction.compute(() -> {
+            List<PurefunAugments> result = new ArrayList<>();
+            for (PsiClass clazz : classes) {
+              result.add(PurefunProvider.getAugments(clazz));
+            }
+            return result;
+          });
+        }));
+      }
+      ready.countDown();
+      List<PurefunAugments> expected = futures.get(0).get(1, TimeUnit.MINUTES);
+      for (Future<List<PurefunAugments>> future : futures) {
+        List<PurefunAugments> actual = future.get(1, TimeUnit.MINUTES);
+        for (int i = 0; i < classes.size(); i++) {
+          assertFalse(actual.get(i).isEmpty());
+          assertSame(expected.get(i), actual.get(i));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(perClass * STRESS_CLASSES, metrics.getRecomputations() - before);
+  }
+
+  private PsiMethod byName(String name, PsiClass owner) {
+    for (PsiMethod method : PsiShortNamesCache.getInstance(getProject()).getMethodsByName(name, GlobalSearchScope.projectScope(getProject()))) {
+      if (method.getContainingClass() == owner) {
+        return method;
+      }
+    }
+    throw new AssertionError("no " + name + " in " + owner.getName());
+  }
+
+  private static PsiMethod resolve(PsiFile file, String call) {
+    PsiReference reference = file.findReferenceAt(file.getText().indexOf(call) + call.indexOf('.') + 1);
+    assertNotNull(reference);
+    PsiElement resolved = reference.resolve();
+    assertInstanceOf(resolved, PsiMethod.class);
+    return (PsiMethod) resolved;
+  }
+
+  static List<String> classNames(List<PsiClass> classes) {
+    List<String> result = new ArrayList<>();
+    for (PsiClass clazz : classes) {
+      result.add(clazz.getName());
+    }
+    return result;
+  }
+
+  static List<String> methodNames(List<PsiMethod> methods) {
+    List<String> result = new ArrayList<>();
+    for (PsiMethod method : methods) {
+      result.add(method.getName());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea;
+
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Light fixture with the mock purefun library of {@code src/test/testData/purefun} copied into the
+ * project sources, so the annotated classes are physical and go through the stub indexes.
+ */
+public abstract class PurefunTestCase extends LightJavaCodeInsightFixtureTestCase {
+
+  private static final LightProjectDescriptor DESCRIPTOR = new DefaultLightProjectDescriptor() {
+    @Override
+    public Sdk getSdk() {
+      return JavaSdk.getInstance().createJdk("java", System.getProperty("java.home"), false);
+    }
+  };
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myFixture.copyDirectoryToProject("purefun", "");
+  }
+
+  @Override
+  protected String getTestDataPath() {
+    return "src/test/testData";
+  }
+
+  @NotNull
+  @Override
+  protected LightProjectDescriptor getProjectDescriptor() {
+    return DESCRIPTOR;
+  }
+
+  @NotNull
+  protected PsiClass addClass(@NotNull String name, @NotNull String text) {
+    PsiJavaFile file = (PsiJavaFile) myFixture.addFileToProject("test/" + name + ".java", "package test;\n" + text);
+    return file.getClasses()[0];
+  }
+
+  @NotNull
+  protected static String higherKind(@NotNull String name, int arity) {
+    StringBuilder text = new StringBuilder("import com.github.tonivade.purefun.HigherKind;\n@HigherKind\npublic interface ");
+    text.append(name).append('<');
+    for (int i = 0; i < arity; i++) {
+      text.append(i > 0 ? ", " : "").append((char) ('A' + i));
+    }
+    return text.append("> {}\n").toString();
+  }
+
+  /**
+   * Bytes allocated so far by the current thread, the test is skipped where the JVM cannot tell.
+   */
+  protected static long allocatedBytes() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+    return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  @NotNull
+  protected static String instance(@NotNull String name) {
+    return "import com.github.tonivade.purefun.Instance;\n@Instance\npublic interface " + name + " {}\n";
+  }
+}
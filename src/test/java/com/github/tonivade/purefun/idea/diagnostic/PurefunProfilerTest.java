@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.diagnostic;
+
+import com.github.tonivade.purefun.idea.PurefunMetrics;
+import com.github.tonivade.purefun.idea.PurefunTestCase;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.impl.light.LightElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PurefunProfilerTest extends PurefunTestCase {
+
+  public void testProjectClassesAreCollectedWithoutAugmenting() {
+    addClass("Foo", "import com.github.tonivade.purefun.HigherKind;\n"
+        + "@HigherKind\npublic interface Foo<A> {\n  class Inner {}\n}\n");
+    PurefunMetrics metrics = PurefunMetrics.getInstance(getProject());
+    metrics.reset();
+
+    List<PsiClass> classes = new PurefunProfiler(getProject()).projectClasses();
+
+    List<String> names = new ArrayList<>();
+    for (PsiClass clazz : classes) {
+      assertTrue(clazz.isPhysical());
+      assertFalse(clazz instanceof LightElement);
+      names.add(clazz.getQualifiedName());
+    }
+    assertTrue(names.contains("test.Foo"));
+    assertTrue(names.contains("test.Foo.Inner"));
+    assertFalse(names.contains("test.Foo.µ"));
+    assertEquals(0, metrics.getRecomputations());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.github.tonivade.purefun.idea.PurefunProvider;
+import com.github.tonivade.purefun.idea.PurefunTestCase;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.impl.light.LightMethodBuilder;
+import com.intellij.psi.impl.light.LightTypeParameterBuilder;
+import com.intellij.util.IncorrectOperationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HigherKindGeneratorTest extends PurefunTestCase {
+
+  private static final int FOOTPRINT_CLASSES = 300;
+
+  public void testGeneratedMethodsShareImmutableParts() {
+    List<PsiMethod> methods = new ArrayList<>();
+    methods.addAll(PurefunProvider.getAugments(addClass("Foo", higherKind("Foo", 3))).getMethods());
+    methods.addAll(PurefunProvider.getAugments(addClass("Bar", higherKind("Bar", 3))).getMethods());
+    methods.addAll(PurefunProvider.getAugments(addClass("FooInstances", instance("FooInstances"))).getMethods());
+    assertEquals(13, methods.size());
+
+    PsiMethod narrowK = find(methods, "narrowK");
+    PsiMethod kind = find(methods, "kind1");
+    PsiMethod instance = find(methods, "instance");
+    for (PsiMethod method : methods) {
+      assertInstanceOf(method, PurefunLightMethod.class);
+      assertSame(narrowK.getThrowsList(), method.getThrowsList());
+      if (method.hasModifierProperty(PsiModifier.STATIC)) {
+        assertSame(narrowK.getModifierList(), method.getModifierList());
+      } else {
+        assertSame(kind.getModifierList(), method.getModifierList());
+        assertSame(kind.getParameterList(), method.getParameterList());
+        assertSame(kind.getTypeParameterList(), method.getTypeParameterList());
+      }
+    }
+    assertSame(kind.getParameterList(), instance.getParameterList());
+  }
+
+  public void testSharedPartsCannotBeModified() {
+    PsiClass foo = addClass("Foo", higherKind("Foo", 1));
+    LightMethodBuilder kind = (LightMethodBuilder) PurefunProvider.getMethods(foo, "kind1").get(0);
+    LightMethodBuilder narrowK = (LightMethodBuilder) PurefunProvider.getMethods(foo, "narrowK").get(0);
+
+    assertModificationFails(() -> kind.addModifier(PsiModifier.FINAL));
+    assertModificationFails(() -> narrowK.setModifiers(PsiModifier.PRIVATE));
+    assertModificationFails(() -> kind.addParameter("x", PsiType.INT));
+    assertModificationFails(() -> narrowK.addException("java.io.IOException"));
+    assertModificationFails(() -> kind.addTypeParameter(new LightTypeParameterBuilder("X", kind, 0)));
+
+    assertTrue(kind.hasModifierProperty(PsiModifier.PUBLIC));
+    assertFalse(kind.hasModifierProperty(PsiModifier.FINAL));
+    assertTrue(narrowK.hasModifierProperty(PsiModifier.STATIC));
+    assertEquals(0, kind.getParameterList().getParametersCount());
+    assertEquals(0, narrowK.getThrowsList().getReferencedTypes().length);
+  }
+
+  /**
+   * Retained heap per arity three class, with the lists shared and with one set of lists per method as
+   * plain light method builders had.
+   */
+  public void testHeapFootprintPerClass() {
+    List<PsiClass> classes = new ArrayList<>();
+    for (int i = 0; i < FOOTPRINT_CLASSES; i++) {
+      classes.add(addClass("Foo" + i, higherKind("Foo" + i, 3)));
+    }
+    HigherKindGenerator shared = HigherKindGenerator.getInstance(getProject());
+    HigherKindGenerator unshared = new HigherKindGenerator(getProject(), new PurefunLightMethodFactory(getPsiManager(), false));
+    retainedPerClass(shared, classes);
+
+    long before = retainedPerClass(unshared, classes);
+    long after = retainedPerClass(shared, classes);
+
+    System.out.println("retained bytes per annotated class: before " + before + ", after " + after);
+    assertTrue("before " + before + ", after " + after, after < before);
+  }
+
+  public void testArityTemplatesAreShared() {
+    assertSame(HigherKindGenerator.ArityTemplate.of(3), HigherKindGenerator.ArityTemplate.of(3));
+    assertEquals(3, HigherKindGenerator.ArityTemplate.of(3).shapes.size());
+    assertEquals(1, HigherKindGenerator.ArityTemplate.of(1).shapes.size());
+  }
+
+  public void testWitnessIsPerClass() {
+    PsiClass foo = addClass("Foo", higherKind("Foo", 1));
+    PsiClass bar = addClass("Bar", higherKind("Bar", 1));
+
+    PsiClass fooWitness = PurefunProvider.getClasses(foo).get(0);
+    PsiClass barWitness = PurefunProvider.getClasses(bar).get(0);
+
+    assertNotSame(fooWitness, barWitness);
+    assertSame(foo, fooWitness.getContainingClass());
+    assertSame(bar, barWitness.getContainingClass());
+  }
+
+  private static void assertModificationFails(Runnable modification) {
+    try {
+      modification.run();
+      fail("shared light element was modified");
+    } catch (IncorrectOperationException expected) {
+      // shared by every generated method
+    }
+  }
+
+  private static long retainedPerClass(HigherKindGenerator generator, List<PsiClass> classes) {
+    long start = usedHeap();
+    List<List<PsiMethod>> retained = new ArrayList<>(classes.size());
+    for (PsiClass clazz : classes) {
+      retained.add(generator.generateMethods(clazz));
+    }
+    long used = usedHeap() - start;
+    assertEquals(classes.size(), retained.size());
+    return used / classes.size();
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static PsiMethod find(List<PsiMethod> methods, String name) {
+    for (PsiMethod method : methods) {
+      if (name.equals(method.getName())) {
+        return method;
+      }
+    }
+    throw new AssertionError("no generated method " + name);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.github.tonivade.purefun.idea.AnnotationIndexService;
+import com.github.tonivade.purefun.idea.ClassDescriptor;
+import com.github.tonivade.purefun.idea.PurefunAnnotations;
+import com.github.tonivade.purefun.idea.PurefunTestCase;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+
+public class PurefunAnnotationIndexTest extends PurefunTestCase {
+
+  public void testDescriptorIsIndexed() {
+    PsiClass clazz = addClass("Foo", higherKind("Foo", 2));
+    ClassDescriptor expected = new ClassDescriptor("test.Foo", 2, false, false);
+
+    assertEquals(singletonList(expected), indexed(PurefunAnnotations.HIGHER_KIND));
+    assertEquals(expected, AnnotationIndexService.getInstance(getProject()).getDescriptor(clazz, PurefunAnnotations.HIGHER_KIND));
+    assertNull(AnnotationIndexService.getInstance(getProject()).getDescriptor(clazz, PurefunAnnotations.INSTANCE));
+  }
+
+  public void testAlreadyDefinedMembersAreIndexed() {
+    addClass("Foo", "import com.github.tonivade.purefun.*;\n"
+        + "@HigherKind\npublic interface Foo<A> extends Higher1<Foo.µ, A> {\n"
+        + "  final class µ implements Kind {}\n"
+        + "  @Instance\n  interface Inner { Inner INSTANCE = null; }\n"
+        + "}\n");
+
+    assertEquals(singletonList(new ClassDescriptor("test.Foo", 1, true, false)), indexed(PurefunAnnotations.HIGHER_KIND));
+    assertEquals(singletonList(new ClassDescriptor("test.Foo.Inner", 0, false, true)), indexed(PurefunAnnotations.INSTANCE));
+  }
+
+  public void testOtherAnnotationWithSameShortNameIsNotIndexed() {
+    addClass("Foo", "import other.HigherKind;\n@HigherKind\npublic interface Foo<A> {}\n");
+    addClass("Bar", "@com.github.tonivade.purefun.HigherKind\npublic interface Bar<A> {}\n");
+
+    assertEquals(singletonList(new ClassDescriptor("test.Bar", 1, false, false)), indexed(PurefunAnnotations.HIGHER_KIND));
+  }
+
+  private List<ClassDescriptor> indexed(String annotation) {
+    List<ClassDescriptor> result = new ArrayList<>();
+    for (List<ClassDescriptor> descriptors : FileBasedIndex.getInstance()
+        .getValues(PurefunAnnotationIndex.NAME, annotation, GlobalSearchScope.projectScope(getProject()))) {
+      result.addAll(descriptors);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun.idea.impl;
+
+import com.github.tonivade.purefun.idea.PurefunProvider;
+import com.github.tonivade.purefun.idea.PurefunTestCase;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.PsiSearchHelper;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+
+import java.util.Collection;
+
+public class PurefunUseScopeOptimizerTest extends PurefunTestCase {
+
+  public void testNarrowKSearchIsRestrictedToFilesNamingTheOwner() {
+    PsiClass foo = addClass("Foo", higherKind("Foo", 1));
+    addClass("Bar", higherKind("Bar", 1));
+    PsiFile usage = myFixture.addFileToProject("test/Usage.java", "package test;\n"
+        + "import com.github.tonivade.purefun.Higher1;\n"
+        + "class Usage {\n"
+        + "  Foo<String> foo(Higher1<Foo.µ, String> hkt) { return Foo.narrowK(hkt); }\n"
+        + "}\n");
+    PsiFile other = myFixture.addFileToProject("test/Other.java", "package test;\n"
+        + "import com.github.tonivade.purefun.Higher1;\n"
+        + "class Other {\n"
+        + "  Bar<String> bar(Higher1<Bar.µ, String> hkt) { return Bar.narrowK(hkt); }\n"
+        + "}\n");
+    PsiMethod narrowK = narrowK(foo);
+
+    SearchScope scope = PsiSearchHelper.getInstance(getProject()).getUseScope(narrowK);
+    assertTrue(scope.contains(usage.getVirtualFile()));
+    assertFalse(scope.contains(other.getVirtualFile()));
+
+    Collection<PsiReference> references = ReferencesSearch.search(narrowK).findAll();
+    assertEquals(1, references.size());
+    assertSame(usage, references.iterator().next().getElement().getContainingFile());
+  }
+
+  public void testInstanceMethodsAreNotRestricted() {
+    PsiClass foo = addClass("Foo", higherKind("Foo", 1));
+    PsiMethod kind1 = PurefunProvider.getMethods(foo, "kind1").get(0);
+
+    assertNull(new PurefunUseScopeOptimizer().getRestrictedUseScope(kind1));
+  }
+
+  private static PsiMethod narrowK(PsiClass clazz) {
+    for (PsiMethod method : PurefunProvider.getAugments(clazz).getMethods()) {
+      if ("narrowK".equals(method.getName())) {
+        return method;
+      }
+    }
+    throw new AssertionError("no narrowK in " + clazz.getName());
+  }
+}
@@ -0,0 +1,8 @@
+/*
+ * Copyright (c) 2019-2020, Antonio Gabriel Muñoz Conejo <antoniogmc at gmail dot com>
+ * Distributed under the terms of the MIT License
+ */
+package com.github.tonivade.purefun;
+
+public interface Higher2<F extends Kind, A, B> extends Higher1<Higher1<F, A>, B> {
+}